@@ -7,16 +7,16 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.web.client.RestTemplate;
 
 import javax.sql.DataSource;
+import java.net.http.HttpClient;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class AppConfig {
@@ -34,14 +34,28 @@ public class AppConfig {
     @Value("${db.schemas.customer.connection.driver-class-name:org.postgresql.Driver}")
     private String customerDbDriverClassName;
 
+    @Value("${query.api.http.version:HTTP_2}")
+    private HttpClient.Version httpVersion;
+
+    @Value("${query.api.http.connect-timeout-ms:5000}")
+    private long httpConnectTimeoutMs;
+
+    /**
+     * HTTP client for API data sources: keeps connections alive and reuses them,
+     * multiplexes requests over HTTP/2 where the server supports it, and runs
+     * its callbacks on virtual threads. Its connection pool is configured with
+     * JVM flags only, see query.api.http in application.yml.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplateBuilder()
-                .setConnectTimeout(Duration.ofMillis(5000))
-                .setReadTimeout(Duration.ofMillis(30000))
+    public HttpClient apiHttpClient() {
+        return HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(httpConnectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-http-", 0).factory()))
                 .build();
     }
-    
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
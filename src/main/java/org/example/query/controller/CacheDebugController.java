@@ -1,10 +1,12 @@
 package org.example.query.controller;
 
 import org.example.query.service.CacheService;
+import org.example.query.service.HotKeyTracker;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -17,9 +19,11 @@ import java.util.Set;
 @RequestMapping("/debug/cache")
 public class CacheDebugController {
     private final CacheService cacheService;
+    private final HotKeyTracker hotKeyTracker;
 
-    public CacheDebugController(CacheService cacheService) {
+    public CacheDebugController(CacheService cacheService, HotKeyTracker hotKeyTracker) {
         this.cacheService = cacheService;
+        this.hotKeyTracker = hotKeyTracker;
     }
 
     /**
@@ -31,7 +35,8 @@ public class CacheDebugController {
     }
 
     /**
-     * Retrieves all live (non-expired) cache entries as key->value.
+     * Retrieves all fresh cache entries as key->value; entries past their TTL
+     * that are only kept for stale-while-revalidate are not listed.
      */
     @GetMapping("/entries")
     public Map<String, Object> getAllEntries() {
@@ -39,11 +44,72 @@ public class CacheDebugController {
     }
 
     /**
-     * Evicts a specific cache entry by key.
+     * Retrieves size, hit ratio and eviction statistics per cache region.
+     */
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> getStats() {
+        return cacheService.getStats();
+    }
+
+    /**
+     * Retrieves the most requested keys per namespace with their estimated
+     * recent request counts (requires cache.hot-keys.enabled).
+     */
+    @GetMapping("/hot-keys")
+    public Map<String, Map<String, Integer>> getHotKeys() {
+        return hotKeyTracker.getHotKeys();
+    }
+
+    /**
+     * Evicts a cache entry by key and returns how many keys were evicted,
+     * counting the key itself. A key rendered from a namespace's cache key
+     * pattern also evicts the results cached under it for every field
+     * selection ({@code <key>#<fields>}).
      */
     @DeleteMapping("/evict/{key}")
-    public void evictKey(@PathVariable String key) {
-        cacheService.evict(key);
+    public int evictKey(@PathVariable("key") String key) {
+        return cacheService.evictWithSuffixes(key);
+    }
+
+    /**
+     * Retrieves the number of cached keys per tag.
+     */
+    @GetMapping("/tags")
+    public Map<String, Integer> getTags() {
+        return cacheService.getTagCounts();
+    }
+
+    /**
+     * Retrieves the keys carrying a tag, e.g. {@code entity:CustomerDBSchema.customers:1}.
+     */
+    @GetMapping(value = "/tags", params = "tag")
+    public Set<String> getTaggedKeys(@RequestParam("tag") String tag) {
+        return cacheService.getKeysForTag(tag);
+    }
+
+    /**
+     * Evicts every entry carrying a tag and returns how many were evicted.
+     */
+    @DeleteMapping("/tags")
+    public int invalidateTag(@RequestParam("tag") String tag) {
+        return cacheService.invalidateTag(tag);
+    }
+
+    /**
+     * Evicts every entry built from a namespace, including views over it.
+     */
+    @DeleteMapping("/namespace/{schema}/{namespace}")
+    public int invalidateNamespace(@PathVariable("schema") String schema, @PathVariable("namespace") String namespace) {
+        return cacheService.invalidateNamespace(schema, namespace);
+    }
+
+    /**
+     * Evicts every entry holding one row of a namespace, including views over it.
+     */
+    @DeleteMapping("/entity/{schema}/{namespace}/{key}")
+    public int invalidateEntity(@PathVariable("schema") String schema, @PathVariable("namespace") String namespace,
+                                @PathVariable("key") String key) {
+        return cacheService.invalidateEntity(schema, namespace, key);
     }
 
     /**
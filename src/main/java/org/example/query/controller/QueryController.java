@@ -1,29 +1,87 @@
 package org.example.query.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.query.model.JsonQuery;
 import org.example.query.model.JsonQueryResponse;
+import org.example.query.model.QueryRequest;
 import org.example.query.service.QueryProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/query")
 public class QueryController {
+    // rows buffered by the JSON generator before the response is flushed
+    private static final int FLUSH_EVERY = 256;
 
     private final QueryProcessor queryProcessor;
-    
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public QueryController(QueryProcessor queryProcessor) {
+    public QueryController(QueryProcessor queryProcessor, ObjectMapper objectMapper) {
         this.queryProcessor = queryProcessor;
+        this.objectMapper = objectMapper;
     }
-    
+
+    /**
+     * Runs a query asynchronously; the request is completed once every sub-query is.
+     */
     @PostMapping
-    public ResponseEntity<JsonQueryResponse> executeQuery(@RequestBody JsonQuery jsonQuery) {
-        JsonQueryResponse response = queryProcessor.processQuery(jsonQuery);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<JsonQueryResponse>> executeQuery(@RequestBody JsonQuery jsonQuery) {
+        return queryProcessor.processQuery(jsonQuery).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams the rows of a single query as they are read, either one JSON object
+     * per line ({@code format=ndjson}, the default) or as one chunked JSON array
+     * ({@code format=json}).
+     */
+    @PostMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamQuery(@RequestBody QueryRequest request,
+                                                             @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        boolean ndjson = !"json".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                if (ndjson) {
+                    // rows are separated by newlines only
+                    gen.setRootValueSeparator(null);
+                } else {
+                    gen.writeStartArray();
+                }
+                long[] rows = {0};
+                queryProcessor.streamQuery(request, row -> {
+                    try {
+                        gen.writeObject(row);
+                        if (ndjson) {
+                            gen.writeRaw('\n');
+                        }
+                        // flush the first row right away, then in chunks
+                        if (rows[0]++ % FLUSH_EVERY == 0) {
+                            gen.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    gen.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
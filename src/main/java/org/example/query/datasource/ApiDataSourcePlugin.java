@@ -1,16 +1,31 @@
 package org.example.query.datasource;
 
 import org.example.query.model.QueryRequest;
+import org.example.query.model.RowSet;
+import org.example.query.service.QueryPlan;
 import org.example.query.service.ApiClient;
+import org.example.schema.model.Field;
 import org.example.schema.model.Namespace;
 import org.example.schema.model.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 /**
  * Plugin implementation for API-backed data sources.
@@ -19,8 +34,14 @@ import java.util.stream.Collectors;
 public class ApiDataSourcePlugin implements DataSourcePlugin {
     private static final Logger logger = LoggerFactory.getLogger(ApiDataSourcePlugin.class);
 
+    /** Placeholder in a batch URL template for the comma-joined keys. */
+    private static final String IDS_PLACEHOLDER = "{ids}";
+
     private final ApiClient apiClient;
 
+    @Value("${query.api.batch.max-keys:100}")
+    private int batchMaxKeys;
+
     @Autowired
     public ApiDataSourcePlugin(ApiClient apiClient) {
         this.apiClient = apiClient;
@@ -45,12 +66,7 @@ public class ApiDataSourcePlugin implements DataSourcePlugin {
     public List<Map<String, Object>> execute(Namespace namespace,
                                              QueryRequest request,
                                              Schema schema) {
-        // Only include the fields requested in the query
-        List<String> requested = request.getFields();
-        var fieldsConfig = namespace.getFields().stream()
-                .filter(f -> requested.contains(f.getName())
-                        || (f.getAliases() != null && f.getAliases().stream().anyMatch(requested::contains)))
-                .collect(Collectors.toList());
+        var fieldsConfig = requestedFields(namespace, request);
 
         logger.info("API plugin executing namespace {} fields {}",
                 namespace.getNamespace(), fieldsConfig.stream().map(f -> f.getName()).collect(Collectors.toList()));
@@ -63,4 +79,218 @@ public class ApiDataSourcePlugin implements DataSourcePlugin {
                 fieldsConfig
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletionStage<List<Map<String, Object>>> executeAsync(Namespace namespace,
+                                                                   QueryRequest request,
+                                                                   Schema schema) {
+        var fieldsConfig = requestedFields(namespace, request);
+
+        logger.info("API plugin executing namespace {} fields {} asynchronously",
+                namespace.getNamespace(), fieldsConfig.stream().map(f -> f.getName()).collect(Collectors.toList()));
+
+        return apiClient.executeQueryAsync(
+                schema.getSource().getApiUrl(),
+                schema.getSource().getHttpMethod(),
+                request.getArguments(),
+                namespace.getResultJsonPath(),
+                fieldsConfig
+        );
+    }
+
+    // Only include the fields requested in the query
+    private List<Field> requestedFields(Namespace namespace, QueryRequest request) {
+        List<String> requested = request.getFields();
+        return namespace.getFields().stream()
+                .filter(f -> requested.contains(f.getName())
+                        || (f.getAliases() != null && f.getAliases().stream().anyMatch(requested::contains)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Map<String, Object>> execute(QueryPlan plan, QueryRequest request) {
+        logger.info("API plugin executing namespace {} fields {}", plan.getNamespaceName(), plan.getFieldNames());
+
+        return apiClient.executeQuery(
+                plan.getSource().getApiUrl(),
+                plan.getSource().getHttpMethod(),
+                request.getArguments(),
+                plan.getNamespace().getResultJsonPath(),
+                plan.getFields()
+        );
+    }
+
+    /**
+     * Like {@link #execute(QueryPlan, QueryRequest)}, but returns as soon as the
+     * request is sent; the stage completes with the rows once the response is parsed.
+     */
+    @Override
+    public CompletionStage<List<Map<String, Object>>> executeAsync(QueryPlan plan, QueryRequest request) {
+        logger.info("API plugin executing namespace {} fields {} asynchronously", plan.getNamespaceName(), plan.getFieldNames());
+
+        return apiClient.executeQueryAsync(
+                plan.getSource().getApiUrl(),
+                plan.getSource().getHttpMethod(),
+                request.getArguments(),
+                plan.getNamespace().getResultJsonPath(),
+                plan.getFields()
+        );
+    }
+
+    /**
+     * Looks many keys up per call when the source declares a {@code batchApiUrl}
+     * and the namespace has a single primary key among the plan's arguments.
+     * The keys are URL-encoded one by one, joined with commas and substituted for
+     * {@code {ids}} in the URL, or sent as the key parameter if the URL has no
+     * placeholder; other arguments are sent as usual, so requests are grouped by
+     * them first. Response nodes are matched back to requests by their key field.
+     * The requests of a batch call that fails are retried as single calls, and
+     * anything that can't be batched is run as parallel single calls.
+     */
+    @Override
+    public List<List<Map<String, Object>>> executeBatch(QueryPlan plan, List<QueryRequest> requests, int parallelism) {
+        Field keyField = batchKeyField(plan);
+        if (keyField == null) {
+            return singleCalls(plan, requests, parallelism);
+        }
+        String keyArg = keyField.getName();
+
+        // the key field is needed to split the response, whether requested or not
+        List<Field> fields = new ArrayList<>(plan.getFields());
+        if (!plan.getFieldNames().contains(keyArg)) {
+            fields.add(keyField);
+        }
+
+        // one call per distinct set of other arguments and per batch.max-keys keys
+        Map<Map<String, Object>, List<Integer>> byOtherArgs = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, Object> others = new HashMap<>(requests.get(i).getArguments());
+            others.remove(keyArg);
+            byOtherArgs.computeIfAbsent(others, k -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<CompletableFuture<List<Map<String, Object>>>> calls = new ArrayList<>();
+        byOtherArgs.forEach((others, idx) -> {
+            for (int from = 0; from < idx.size(); from += Math.max(1, batchMaxKeys)) {
+                List<Integer> chunk = idx.subList(from, Math.min(idx.size(), from + Math.max(1, batchMaxKeys)));
+                // encoded one by one, so a comma, '&' or '/' in a key can't split or break the list
+                StringJoiner ids = new StringJoiner(",");
+                chunk.stream()
+                        .map(i -> String.valueOf(requests.get(i).getArguments().get(keyArg)))
+                        .distinct()
+                        .map(id -> UriUtils.encode(id, StandardCharsets.UTF_8))
+                        .forEach(ids::add);
+                chunks.add(chunk);
+                calls.add(batchCall(plan, others, keyArg, ids.toString(), fields));
+            }
+        });
+        logger.info("API plugin executing {} request(s) of namespace {} as {} batch call(s)",
+                requests.size(), plan.getNamespaceName(), calls.size());
+
+        List<List<Map<String, Object>>> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(null);
+        }
+        for (int c = 0; c < calls.size(); c++) {
+            List<Map<String, Object>> batchRows;
+            try {
+                batchRows = joinCall(calls.get(c));
+            } catch (RuntimeException e) {
+                // only this call's requests are affected: retry them one by one
+                List<Integer> chunk = chunks.get(c);
+                logger.warn("Batch call for {} key(s) of namespace {} failed, retrying them singly: {}",
+                        chunk.size(), plan.getNamespaceName(), e.getMessage());
+                List<List<Map<String, Object>>> single = singleCalls(plan,
+                        chunk.stream().map(requests::get).toList(), parallelism);
+                for (int j = 0; j < chunk.size(); j++) {
+                    results.set(chunk.get(j), single.get(j));
+                }
+                continue;
+            }
+            Map<String, RowSet> byKey = new HashMap<>();
+            for (Map<String, Object> row : batchRows) {
+                RowSet rows = byKey.computeIfAbsent(String.valueOf(row.get(keyArg)),
+                        k -> new RowSet(new RowSet.Header(plan.getFieldNames())));
+                Object[] values = new Object[plan.getFieldNames().size()];
+                for (int f = 0; f < values.length; f++) {
+                    values[f] = row.get(plan.getFieldNames().get(f));
+                }
+                rows.addValues(values);
+            }
+            for (int i : chunks.get(c)) {
+                RowSet rows = byKey.get(String.valueOf(requests.get(i).getArguments().get(keyArg)));
+                results.set(i, rows != null ? rows : new RowSet(new RowSet.Header(plan.getFieldNames())));
+            }
+        }
+        return results;
+    }
+
+    private List<List<Map<String, Object>>> singleCalls(QueryPlan plan, List<QueryRequest> requests, int parallelism) {
+        return DataSourcePlugin.super.executeBatch(plan, requests, parallelism);
+    }
+
+    /** The namespace's single primary key field, if it is an argument of the plan and the source can batch. */
+    private static Field batchKeyField(QueryPlan plan) {
+        String batchApiUrl = plan.getSource().getBatchApiUrl();
+        List<String> pk = plan.getNamespace().getPrimaryKey();
+        if (batchApiUrl == null || batchApiUrl.isBlank() || pk == null || pk.size() != 1
+                || !plan.getArgumentNames().contains(pk.get(0))) {
+            return null;
+        }
+        return plan.getNamespace().getFields().stream()
+                .filter(f -> f.getName().equals(pk.get(0)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /** ids are already encoded, so they go into the URL, which ApiClient uses as given. */
+    private CompletableFuture<List<Map<String, Object>>> batchCall(QueryPlan plan, Map<String, Object> otherArgs,
+                                                                   String keyArg, String ids, List<Field> fields) {
+        String batchApiUrl = plan.getSource().getBatchApiUrl();
+        Map<String, Object> params = new LinkedHashMap<>(otherArgs);
+        if (batchApiUrl.contains(IDS_PLACEHOLDER)) {
+            batchApiUrl = batchApiUrl.replace(IDS_PLACEHOLDER, ids);
+        } else {
+            batchApiUrl = UriComponentsBuilder.fromHttpUrl(batchApiUrl)
+                    .queryParam(UriUtils.encodeQueryParam(keyArg, StandardCharsets.UTF_8), ids)
+                    .build(true)
+                    .toUriString();
+        }
+        return apiClient.executeQueryAsync(
+                batchApiUrl,
+                plan.getSource().getHttpMethod(),
+                params,
+                plan.getNamespace().getResultJsonPath(),
+                fields
+        ).toCompletableFuture();
+    }
+
+    private static List<Map<String, Object>> joinCall(CompletableFuture<List<Map<String, Object>>> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Hands rows on as the response is parsed when streaming extraction is on,
+     * instead of materializing the whole response first.
+     */
+    @Override
+    public void stream(QueryPlan plan, QueryRequest request, int fetchSize, Consumer<Map<String, Object>> sink) {
+        logger.info("API plugin streaming namespace {} fields {}", plan.getNamespaceName(), plan.getFieldNames());
+
+        apiClient.streamQuery(
+                plan.getSource().getApiUrl(),
+                plan.getSource().getHttpMethod(),
+                request.getArguments(),
+                plan.getNamespace().getResultJsonPath(),
+                plan.getFields(),
+                sink
+        );
+    }
+}
@@ -1,11 +1,17 @@
 package org.example.query.datasource;
 
 import org.example.query.model.QueryRequest;
+import org.example.query.service.QueryPlan;
 import org.example.schema.model.Namespace;
 import org.example.schema.model.Schema;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 public interface DataSourcePlugin {
     /**
      * Unique type that this plugin handles, e.g. "api", "jdbc".
@@ -30,4 +36,69 @@ public interface DataSourcePlugin {
      * @return List of rows (fieldName->value)
      */
     List<Map<String, Object>> execute(Namespace namespace, QueryRequest request, Schema schema);
-}
\ No newline at end of file
+
+    /**
+     * Asynchronous {@link #execute(Namespace, QueryRequest, Schema)}: returns at once
+     * with a stage that completes with the rows. The default runs the synchronous
+     * method on a virtual thread; plugins with non-blocking I/O or their own
+     * executor override it.
+     */
+    default CompletionStage<List<Map<String, Object>>> executeAsync(Namespace namespace, QueryRequest request, Schema schema) {
+        return CompletableFuture.supplyAsync(() -> execute(namespace, request, schema), SyncPluginExecutor.INSTANCE);
+    }
+
+    /**
+     * Precompute plugin-specific state (SQL text, lookup keys, ...) for a compiled plan.
+     * Called once when the plan is built; the default does nothing.
+     */
+    default void compile(QueryPlan plan) {
+    }
+
+    /**
+     * Execute a request using a compiled plan.
+     * The default ignores the precomputed state and delegates to {@link #execute}.
+     */
+    default List<Map<String, Object>> execute(QueryPlan plan, QueryRequest request) {
+        return execute(plan.getNamespace(), request, plan.getSchema());
+    }
+
+    /**
+     * Asynchronous {@link #execute(QueryPlan, QueryRequest)}. The default runs the
+     * synchronous method on a virtual thread.
+     */
+    default CompletionStage<List<Map<String, Object>>> executeAsync(QueryPlan plan, QueryRequest request) {
+        return CompletableFuture.supplyAsync(() -> execute(plan, request), SyncPluginExecutor.INSTANCE);
+    }
+
+    /**
+     * Execute many requests of one plan, typically differing only in their key
+     * argument, and return each request's rows in request order. Plugins that can
+     * look many keys up at once override this to do so in fewer round trips; the
+     * default runs the requests through {@link #executeAsync(QueryPlan, QueryRequest)}
+     * with at most {@code parallelism} in flight.
+     * @param parallelism requests run at once where lookups aren't batched
+     */
+    default List<List<Map<String, Object>>> executeBatch(QueryPlan plan, List<QueryRequest> requests, int parallelism) {
+        Semaphore inFlight = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>(requests.size());
+        for (QueryRequest request : requests) {
+            inFlight.acquireUninterruptibly();
+            futures.add(executeAsync(plan, request).toCompletableFuture()
+                    .whenComplete((rows, e) -> inFlight.release()));
+        }
+        List<List<Map<String, Object>>> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<Map<String, Object>>> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Execute a request and hand each row to {@code sink} as it is read, so the caller
+     * never holds the whole result. The default materializes the rows via {@link #execute}.
+     * @param fetchSize rows fetched from the source per round trip, where supported
+     */
+    default void stream(QueryPlan plan, QueryRequest request, int fetchSize, Consumer<Map<String, Object>> sink) {
+        execute(plan, request).forEach(sink);
+    }
+}
@@ -1,20 +1,39 @@
 package org.example.query.datasource;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.example.query.model.QueryRequest;
+import org.example.query.service.QueryPlan;
 import org.example.query.service.SqlGenerator;
+import org.example.schema.model.Field;
 import org.example.schema.model.Namespace;
 import org.example.schema.model.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
- * Plugin implementation for JDBC-backed (database) data sources.
+ * Plugin implementation for JDBC-backed (database) data sources. Asynchronous
+ * executions run on a bounded pool of platform threads sized to the
+ * connection pools, so blocked JDBC calls can't pile up without limit.
  */
 @Component
 public class JdbcDataSourcePlugin implements DataSourcePlugin {
@@ -22,11 +41,47 @@ public class JdbcDataSourcePlugin implements DataSourcePlugin {
 
     private final SqlGenerator sqlGenerator;
 
+    @Value("${query.jdbc.executor.pool-size:16}")
+    private int poolSize;
+
+    @Value("${query.jdbc.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor jdbcExecutor;
+
     @Autowired
     public JdbcDataSourcePlugin(SqlGenerator sqlGenerator) {
         this.sqlGenerator = sqlGenerator;
     }
 
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIds = new AtomicInteger();
+        jdbcExecutor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "jdbc-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, pool) -> {
+                    // after shutdown, fail the call's future rather than dropping it
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("JDBC executor is shut down");
+                    }
+                    // queue is full: push back on the submitting thread
+                    r.run();
+                });
+        jdbcExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jdbcExecutor.shutdown();
+    }
+
     @Override
     public String getType() {
         return "jdbc";
@@ -65,4 +120,98 @@ public class JdbcDataSourcePlugin implements DataSourcePlugin {
                 namespace
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    public void compile(QueryPlan plan) {
+        plan.setSql(sqlGenerator.generateSql(plan.getNamespace(), plan.getFieldNames(), plan.getArgumentNames()));
+        plan.setDbKey(plan.getSource().getDbName().toLowerCase());
+
+        // a single key argument that maps to a column can be batched into one ANY(?) query
+        if (plan.getArgumentNames().size() == 1 && plan.getArgumentFields().get(0) != null) {
+            Field keyField = plan.getArgumentFields().get(0);
+            plan.setBatchSql(sqlGenerator.generateBatchSql(plan.getNamespace(), plan.getFieldNames(), keyField.getName()));
+        }
+    }
+
+    /**
+     * Executes many requests of one batchable plan as a single ANY(?) query and
+     * splits the rows by key, returning each request's rows in request order.
+     * Plans that can't be batched fall back to parallel single queries.
+     */
+    @Override
+    public List<List<Map<String, Object>>> executeBatch(QueryPlan plan, List<QueryRequest> requests, int parallelism) {
+        if (!plan.isBatchable()) {
+            return DataSourcePlugin.super.executeBatch(plan, requests, parallelism);
+        }
+        String keyArg = plan.getArgumentNames().get(0);
+        Field keyField = plan.getArgumentFields().get(0);
+
+        Object[] keys = new Object[requests.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = requests.get(i).getArguments().get(keyArg);
+        }
+        Object[] typedKeys = sqlGenerator.bindParameters(Collections.nCopies(keys.length, keyField), keys);
+        Object[] distinctKeys = Arrays.stream(typedKeys).distinct().toArray();
+
+        Map<Object, List<Map<String, Object>>> byKey = sqlGenerator.executeBatch(
+                plan.getDbKey(),
+                plan.getBatchSql(),
+                keyField.getName(),
+                keyField.getType(),
+                distinctKeys,
+                plan.getFieldNames(),
+                plan.getNamespace()
+        );
+
+        List<List<Map<String, Object>>> results = new ArrayList<>(requests.size());
+        for (Object key : typedKeys) {
+            results.add(byKey.getOrDefault(SqlGenerator.normalizeKey(key), Collections.emptyList()));
+        }
+        return results;
+    }
+
+    @Override
+    public List<Map<String, Object>> execute(QueryPlan plan, QueryRequest request) {
+        logger.info("JDBC plugin executing SQL: {}", plan.getSql());
+        Object[] params = sqlGenerator.bindParameters(
+                plan.getArgumentFields(),
+                plan.argumentValues(request.getArguments())
+        );
+        return sqlGenerator.executePrepared(
+                plan.getDbKey(),
+                plan.getSql(),
+                params,
+                plan.getFieldNames(),
+                plan.getNamespace()
+        );
+    }
+
+    @Override
+    public CompletionStage<List<Map<String, Object>>> executeAsync(Namespace namespace, QueryRequest request, Schema schema) {
+        return supplyOnPool(() -> execute(namespace, request, schema));
+    }
+
+    @Override
+    public CompletionStage<List<Map<String, Object>>> executeAsync(QueryPlan plan, QueryRequest request) {
+        return supplyOnPool(() -> execute(plan, request));
+    }
+
+    /** Runs a call on the JDBC pool; once the pool is shut down the future fails with a {@link RejectedExecutionException}. */
+    private CompletableFuture<List<Map<String, Object>>> supplyOnPool(Supplier<List<Map<String, Object>>> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, jdbcExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void stream(QueryPlan plan, QueryRequest request, int fetchSize, Consumer<Map<String, Object>> sink) {
+        logger.info("JDBC plugin streaming SQL: {}", plan.getSql());
+        Object[] params = sqlGenerator.bindParameters(
+                plan.getArgumentFields(),
+                plan.argumentValues(request.getArguments())
+        );
+        sqlGenerator.streamPrepared(plan.getDbKey(), plan.getSql(), params, fetchSize, sink);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.query.datasource;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the blocking {@code execute} of plugins without an asynchronous
+ * implementation, for the default {@link DataSourcePlugin#executeAsync}:
+ * one virtual thread per call, so a blocked call holds no platform thread.
+ */
+final class SyncPluginExecutor {
+    static final Executor INSTANCE = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("plugin-sync-", 0).factory());
+
+    private SyncPluginExecutor() {
+    }
+}
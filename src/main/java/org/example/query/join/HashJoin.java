@@ -0,0 +1,283 @@
+package org.example.query.join;
+
+import org.example.query.service.SqlGenerator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash join of a view's base rows with any number of join inputs.
+ *
+ * Each join input is hashed on its key column, using primitive long keys when
+ * every key is integral (including numeric strings from API sources) and
+ * normalized object keys otherwise, then probed once per base row. The output
+ * projection is resolved up front, so producing an output row only copies the
+ * projected columns of each matched source into an {@code Object[]}.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class HashJoin {
+    private final int width;
+    private final Projection baseProjection;
+    private final List<JoinSpec> joins;
+
+    /**
+     * @param width          number of output columns
+     * @param baseProjection base columns copied into the output
+     * @param joins          one spec per join input, in the order their rows are passed to {@link #join}
+     */
+    public HashJoin(int width, Projection baseProjection, List<JoinSpec> joins) {
+        this.width = width;
+        this.baseProjection = baseProjection;
+        this.joins = List.copyOf(joins);
+    }
+
+    /**
+     * Joins the base rows with each join input and returns the projected output rows.
+     *
+     * @param joinRows rows of each join input, parallel to the join specs
+     */
+    public List<Object[]> join(List<Map<String, Object>> baseRows, List<List<Map<String, Object>>> joinRows) {
+        int n = joins.size();
+        Index[] indexes = new Index[n];
+        boolean[][] matched = new boolean[n][];
+        for (int j = 0; j < n; j++) {
+            indexes[j] = Index.build(joinRows.get(j), joins.get(j).buildKey);
+            if (joins.get(j).type == JoinType.RIGHT) {
+                matched[j] = new boolean[joinRows.get(j).size()];
+            }
+        }
+
+        List<Object[]> out = new ArrayList<>(baseRows.size());
+        int[] heads = new int[n];
+        Object[] row = new Object[width];
+        for (Map<String, Object> base : baseRows) {
+            boolean keep = true;
+            for (int j = 0; j < n && keep; j++) {
+                JoinSpec spec = joins.get(j);
+                heads[j] = indexes[j].first(base.get(spec.probeKey));
+                // only a left join keeps a base row that has no partner
+                keep = heads[j] != LongIntHashMap.MISSING || spec.type == JoinType.LEFT;
+            }
+            if (!keep) {
+                continue;
+            }
+            baseProjection.copy(base, row);
+            product(0, heads, indexes, joinRows, matched, row, out);
+        }
+
+        // right joins also emit join rows that no base row matched
+        for (int j = 0; j < n; j++) {
+            if (matched[j] == null) {
+                continue;
+            }
+            List<Map<String, Object>> rows = joinRows.get(j);
+            for (int k = 0; k < rows.size(); k++) {
+                if (!matched[j][k]) {
+                    Object[] orphan = new Object[width];
+                    joins.get(j).projection.copy(rows.get(k), orphan);
+                    out.add(orphan);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Emits one output row per combination of matching join rows.
+     */
+    private void product(int j, int[] heads, Index[] indexes, List<List<Map<String, Object>>> joinRows,
+                         boolean[][] matched, Object[] row, List<Object[]> out) {
+        if (j == joins.size()) {
+            out.add(row.clone());
+            return;
+        }
+        Projection projection = joins.get(j).projection;
+        if (heads[j] == LongIntHashMap.MISSING) {
+            projection.clear(row);
+            product(j + 1, heads, indexes, joinRows, matched, row, out);
+            return;
+        }
+        for (int k = heads[j]; k != LongIntHashMap.MISSING; k = indexes[j].next[k]) {
+            if (matched[j] != null) {
+                matched[j][k] = true;
+            }
+            projection.copy(joinRows.get(j).get(k), row);
+            product(j + 1, heads, indexes, joinRows, matched, row, out);
+        }
+    }
+
+    /**
+     * Source columns and the output positions they are copied to.
+     */
+    public static class Projection {
+        private final String[] columns;
+        private final int[] positions;
+
+        public Projection(List<String> columns, List<Integer> positions) {
+            this.columns = columns.toArray(new String[0]);
+            this.positions = positions.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        void copy(Map<String, Object> source, Object[] target) {
+            for (int i = 0; i < columns.length; i++) {
+                target[positions[i]] = source.get(columns[i]);
+            }
+        }
+
+        void clear(Object[] target) {
+            for (int position : positions) {
+                target[position] = null;
+            }
+        }
+    }
+
+    /**
+     * One join input: the base column probed, the join column hashed, the join type
+     * and the join columns projected into the output.
+     */
+    public static class JoinSpec {
+        private final String probeKey;
+        private final String buildKey;
+        private final JoinType type;
+        private final Projection projection;
+
+        public JoinSpec(String probeKey, String buildKey, JoinType type, Projection projection) {
+            this.probeKey = probeKey;
+            this.buildKey = buildKey;
+            this.type = type;
+            this.projection = projection;
+        }
+    }
+
+    /**
+     * Hash index over one join input. Rows sharing a key are chained through
+     * {@code next} in input order.
+     */
+    private static final class Index {
+        private final LongIntHashMap longHeads;
+        private final Map<Object, Integer> objectHeads;
+        private final int[] next;
+
+        private Index(LongIntHashMap longHeads, Map<Object, Integer> objectHeads, int[] next) {
+            this.longHeads = longHeads;
+            this.objectHeads = objectHeads;
+            this.next = next;
+        }
+
+        static Index build(List<Map<String, Object>> rows, String key) {
+            int size = rows.size();
+            Object[] keys = new Object[size];
+            boolean integral = true;
+            for (int i = 0; i < size; i++) {
+                keys[i] = rows.get(i).get(key);
+                if (keys[i] != null && !isLongKey(keys[i])) {
+                    integral = false;
+                }
+            }
+
+            int[] next = new int[size];
+            // insert back to front so each chain lists rows in input order
+            if (integral) {
+                LongIntHashMap heads = new LongIntHashMap(size);
+                for (int i = size - 1; i >= 0; i--) {
+                    if (keys[i] == null) {
+                        next[i] = LongIntHashMap.MISSING;
+                        continue;
+                    }
+                    long k = longKey(keys[i]);
+                    next[i] = heads.get(k);
+                    heads.put(k, i);
+                }
+                return new Index(heads, null, next);
+            }
+
+            Map<Object, Integer> heads = new HashMap<>(size * 2);
+            for (int i = size - 1; i >= 0; i--) {
+                if (keys[i] == null) {
+                    next[i] = LongIntHashMap.MISSING;
+                    continue;
+                }
+                Object k = SqlGenerator.normalizeKey(keys[i]);
+                next[i] = heads.getOrDefault(k, LongIntHashMap.MISSING);
+                heads.put(k, i);
+            }
+            return new Index(null, heads, next);
+        }
+
+        int first(Object probe) {
+            if (probe == null) {
+                return LongIntHashMap.MISSING;
+            }
+            if (longHeads != null) {
+                return isLongKey(probe) ? longHeads.get(longKey(probe)) : LongIntHashMap.MISSING;
+            }
+            return objectHeads.getOrDefault(SqlGenerator.normalizeKey(probe), LongIntHashMap.MISSING);
+        }
+    }
+
+    static boolean isLongKey(Object v) {
+        if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+            return true;
+        }
+        if (v instanceof BigInteger bi) {
+            return bi.bitLength() < 64;
+        }
+        if (v instanceof BigDecimal bd) {
+            BigDecimal stripped = bd.stripTrailingZeros();
+            return stripped.scale() <= 0 && stripped.toBigInteger().bitLength() < 64;
+        }
+        if (v instanceof Double || v instanceof Float) {
+            double d = ((Number) v).doubleValue();
+            return d == Math.rint(d) && Math.abs(d) < 0x1p53;
+        }
+        if (v instanceof String s) {
+            return isCanonicalLong(s);
+        }
+        return false;
+    }
+
+    static long longKey(Object v) {
+        if (v instanceof String s) {
+            return Long.parseLong(s);
+        }
+        if (v instanceof BigDecimal bd) {
+            return bd.longValue();
+        }
+        return ((Number) v).longValue();
+    }
+
+    /**
+     * true for strings such as "42" or "-7" that round-trip through Long.toString,
+     * so "007" or "+1" are not treated as numbers.
+     */
+    private static boolean isCanonicalLong(String s) {
+        int len = s.length();
+        if (len == 0 || len > 20) {
+            return false;
+        }
+        int i = s.charAt(0) == '-' ? 1 : 0;
+        if (i == len || (s.charAt(i) == '0' && len > i + 1)) {
+            return false;
+        }
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (len >= 19) {
+            // may overflow a long
+            try {
+                Long.parseLong(s);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.query.join;
+
+/**
+ * Join semantics for view joins. The base namespace is the left side.
+ */
+public enum JoinType {
+    /** emit a base row only when the join has a matching row */
+    INNER,
+    /** always emit base rows; join fields are null when nothing matches */
+    LEFT,
+    /** emit every join row; base fields are null when no base row matches */
+    RIGHT;
+
+    /**
+     * Parses a schema join type; missing or unknown types behave as LEFT.
+     */
+    public static JoinType of(String type) {
+        if (type == null) {
+            return LEFT;
+        }
+        switch (type.trim().toLowerCase()) {
+            case "inner":
+                return INNER;
+            case "right":
+                return RIGHT;
+            default:
+                return LEFT;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.query.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map view of one row of a {@link RowSet}. Reads go straight to the shared
+ * header and the row's values; {@link #put} may only replace the value of an
+ * existing column.
+ */
+@JsonSerialize(using = Row.Serializer.class)
+public final class Row extends AbstractMap<String, Object> {
+    private final RowSet.Header header;
+    private final Object[] values;
+
+    public Row(RowSet.Header header, Object[] values) {
+        this.header = header;
+        this.values = values;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = header.indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return header.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = header.indexOf(key);
+        if (i < 0) {
+            throw new UnsupportedOperationException("Row has no column '" + key + "'");
+        }
+        Object old = values[i];
+        values[i] = value;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (i >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int c = i++;
+                        return new SimpleImmutableEntry<>(header.name(c), values[c]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    static void writeObject(RowSet.Header header, Object[] values, JsonGenerator gen,
+                            SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (int c = 0; c < values.length; c++) {
+            gen.writeFieldName(header.name(c));
+            provider.defaultSerializeValue(values[c], gen);
+        }
+        gen.writeEndObject();
+    }
+
+    static class Serializer extends StdSerializer<Row> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(Row.class);
+        }
+
+        @Override
+        public void serialize(Row row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeObject(row.header, row.values, gen, provider);
+        }
+    }
+}
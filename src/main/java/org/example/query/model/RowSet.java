@@ -0,0 +1,200 @@
+package org.example.query.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Result rows stored as one shared {@link Header} plus an {@code Object[]} of
+ * values per row, instead of a map with its own entries and key strings per row.
+ *
+ * A RowSet is also a {@code List<Map<String, Object>>}: {@link #get} returns a
+ * {@link Row} view over the stored values, so code written against maps keeps
+ * working. Serialized as a JSON array of objects.
+ *
+ * Rows that no longer change, such as cached results, can {@link #retainJson
+ * keep their serialized JSON}, which is then spliced into the output as is.
+ */
+@JsonSerialize(using = RowSet.Serializer.class)
+public class RowSet extends AbstractList<Map<String, Object>> implements RandomAccess {
+    private final Header header;
+    private final List<Object[]> values;
+    // UTF-8 JSON of the rows once retained; see retainJson
+    private volatile byte[] json;
+
+    public RowSet(Header header) {
+        this(header, new ArrayList<>());
+    }
+
+    public RowSet(Header header, List<Object[]> values) {
+        this.header = header;
+        this.values = values;
+    }
+
+    /**
+     * Copies arbitrary row maps into a RowSet whose header is the union of their keys.
+     */
+    public static RowSet copyOf(List<Map<String, Object>> rows) {
+        if (rows instanceof RowSet rs) {
+            return rs;
+        }
+        List<String> columns = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            for (String column : row.keySet()) {
+                if (!columns.contains(column)) {
+                    columns.add(column);
+                }
+            }
+        }
+        Header header = new Header(columns);
+        RowSet out = new RowSet(header, new ArrayList<>(rows.size()));
+        for (Map<String, Object> row : rows) {
+            Object[] v = new Object[header.size()];
+            for (int c = 0; c < v.length; c++) {
+                v[c] = row.get(header.name(c));
+            }
+            out.addValues(v);
+        }
+        return out;
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    /** Appends a row; {@code rowValues} is parallel to the header and is not copied. */
+    public void addValues(Object[] rowValues) {
+        values.add(rowValues);
+    }
+
+    /** Stored values of row {@code i}, parallel to the header. */
+    public Object[] values(int i) {
+        return values.get(i);
+    }
+
+    @Override
+    public Row get(int index) {
+        return new Row(header, values.get(index));
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Serializes the rows once with the given mapper and keeps the bytes, which
+     * are then written verbatim whenever the rows are serialized to UTF-8 JSON.
+     * The rows must not be changed afterwards.
+     */
+    public RowSet retainJson(ObjectMapper mapper) {
+        if (json == null) {
+            try {
+                json = mapper.writeValueAsBytes(this);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to serialize rows", e);
+            }
+        }
+        return this;
+    }
+
+    /** Length of the retained JSON, or 0 if none is retained. */
+    public int getRetainedJsonLength() {
+        byte[] j = json;
+        return j != null ? j.length : 0;
+    }
+
+    /**
+     * Returns a copy with extra (initially null) columns appended to every row.
+     */
+    public RowSet withColumns(List<String> extra) {
+        List<String> columns = new ArrayList<>(Arrays.asList(header.names));
+        columns.addAll(extra);
+        Header wider = new Header(columns);
+        List<Object[]> copied = new ArrayList<>(values.size());
+        for (Object[] v : values) {
+            copied.add(Arrays.copyOf(v, wider.size()));
+        }
+        return new RowSet(wider, copied);
+    }
+
+    /**
+     * Column names of a result, shared by all of its rows. Lookups fall back to a
+     * case-insensitive match, as column labels depend on the database.
+     */
+    public static final class Header {
+        private final String[] names;
+        private final Map<String, Integer> index;
+        private final Map<String, Integer> lowerIndex;
+
+        public Header(List<String> names) {
+            this.names = names.toArray(new String[0]);
+            this.index = new HashMap<>(this.names.length * 2);
+            this.lowerIndex = new HashMap<>(this.names.length * 2);
+            for (int i = 0; i < this.names.length; i++) {
+                index.putIfAbsent(this.names[i], i);
+                lowerIndex.putIfAbsent(this.names[i].toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public String name(int i) {
+            return names[i];
+        }
+
+        /** Position of a column, or -1 if the header has no such column. */
+        public int indexOf(Object name) {
+            if (!(name instanceof String s)) {
+                return -1;
+            }
+            Integer i = index.get(s);
+            if (i == null) {
+                i = lowerIndex.get(s.toLowerCase(Locale.ROOT));
+            }
+            return i != null ? i : -1;
+        }
+    }
+
+    /**
+     * Writes each row as a JSON object straight from the header and values,
+     * or the retained JSON as is when writing compact UTF-8 JSON.
+     */
+    static class Serializer extends StdSerializer<RowSet> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(RowSet.class);
+        }
+
+        @Override
+        public void serialize(RowSet rows, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            byte[] json = rows.json;
+            if (json != null && gen instanceof UTF8JsonGenerator && gen.getPrettyPrinter() == null) {
+                gen.writeRawValue(new RawJson(json));
+                return;
+            }
+            gen.writeStartArray(rows, rows.size());
+            for (Object[] v : rows.values) {
+                Row.writeObject(rows.header, v, gen, provider);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -1,42 +1,77 @@
 package org.example.query.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
+import org.example.query.model.Row;
+import org.example.query.model.RowSet;
 import org.example.schema.model.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 @Service
 public class ApiClient {
     private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
 
-    private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    // response bodies are read and parsed here; a read waiting for data only parks a virtual thread
+    private final Executor parseExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-parse-", 0).factory());
+    // JsonPaths compiled once per path string; paths come from schema definitions
+    private final Map<String, JsonPath> compiledPaths = new ConcurrentHashMap<>();
+    // streaming extractors by namespace path and fields; empty if the paths can't be streamed
+    private final Map<String, Optional<JsonStreamExtractor>> extractors = new ConcurrentHashMap<>();
+    // requests in flight per scheme://host:port
+    private final Map<String, AsyncPermits> hostPermits = new ConcurrentHashMap<>();
+
+    @Value("${query.api.streaming-extraction:false}")
+    private boolean streamingExtraction;
+
+    @Value("${query.api.http.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    @Value("${query.api.http.max-connections-per-host:64}")
+    private int maxConnectionsPerHost;
+
+    @Value("${query.api.http.gzip:true}")
+    private boolean gzip;
 
     @Autowired
-    public ApiClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
+    public ApiClient(HttpClient apiHttpClient, ObjectMapper objectMapper) {
+        this.httpClient = apiHttpClient;
         this.objectMapper = objectMapper;
     }
 
     /**
-     * Execute an API query with hybrid JsonPath support.
-     * Only the requested Field objects are processed.
+     * Execute an API query with hybrid JsonPath support, blocking until the rows
+     * are extracted. See {@link #executeQueryAsync}.
      */
     public List<Map<String, Object>> executeQuery(
             String apiUrl,
@@ -44,86 +79,104 @@ public class ApiClient {
             Map<String, Object> queryParams,
             String namespaceJsonPath,
             List<Field> fields
+    ) {
+        return join(executeQueryAsync(apiUrl, httpMethod, queryParams, namespaceJsonPath, fields));
+    }
+
+    /**
+     * Execute an API query with hybrid JsonPath support without holding a thread
+     * while the request is in flight. Only the requested Field objects are
+     * processed. The body is parsed once; field paths under the namespace path
+     * are evaluated against each node. With query.api.streaming-extraction, the
+     * body is read as a token stream instead where the paths allow (see
+     * {@link JsonStreamExtractor}).
+     */
+    public CompletionStage<List<Map<String, Object>>> executeQueryAsync(
+            String apiUrl,
+            String httpMethod,
+            Map<String, Object> queryParams,
+            String namespaceJsonPath,
+            List<Field> fields
     ) {
         logger.info("Making API request to: {}", apiUrl);
 
-        // Build URL with query parameters
-        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(apiUrl);
-        queryParams.forEach((key, value) -> builder.queryParam(key, value));
-
-        // Set up headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Accept", "application/json");
-        HttpEntity<?> entity = new HttpEntity<>(headers);
-
-        // Make API call
-        HttpMethod method = HttpMethod.valueOf(httpMethod);
-        ResponseEntity<String> response = restTemplate.exchange(
-                builder.toUriString(),
-                method,
-                entity,
-                String.class
-        );
-        String rawBody = response.getBody();
+        JsonStreamExtractor extractor = streamingExtraction ? extractorFor(namespaceJsonPath, fields) : null;
+        HttpRequest request = buildRequest(apiUrl, httpMethod, queryParams);
+        AsyncPermits permits = permitsFor(request.uri());
+        return permits.acquire()
+                .thenCompose(v -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()))
+                .<List<Map<String, Object>>>thenApplyAsync(response -> {
+                    try (InputStream body = openBody(response)) {
+                        if (extractor == null) {
+                            return extractTree(body, namespaceJsonPath, fields);
+                        }
+                        RowSet result = new RowSet(new RowSet.Header(fields.stream().map(Field::getName).toList()));
+                        try (JsonParser parser = objectMapper.createParser(body)) {
+                            extractor.extract(parser, result::addValues);
+                        }
+                        return result;
+                    } catch (IOException e) {
+                        logger.error("Error processing API response", e);
+                        throw new RuntimeException("Error processing API response", e);
+                    }
+                }, parseExecutor)
+                .whenComplete((rows, e) -> permits.release());
+    }
 
+    /** Extracts the rows from the parsed document; package-private for comparison with {@link JsonStreamExtractor}. */
+    RowSet extractTree(InputStream body, String namespaceJsonPath, List<Field> fields) {
         try {
-            // 1. Extract namespace subtree via JsonPath or default to full JSON
-            Object extracted = (namespaceJsonPath != null && !namespaceJsonPath.trim().isEmpty())
-                    ? JsonPath.read(rawBody, namespaceJsonPath)
-                    : objectMapper.readTree(rawBody);
-
-            // 2. Normalize to List<JsonNode>
-            List<JsonNode> nodes;
-            if (extracted instanceof List) {
-                @SuppressWarnings("unchecked") List<Object> rawList = (List<Object>) extracted;
-                nodes = new ArrayList<>();
-                for (Object obj : rawList) {
-                    nodes.add(objectMapper.valueToTree(obj));
-                }
-            } else {
-                JsonNode single = objectMapper.valueToTree(extracted);
-                nodes = Collections.singletonList(single);
-            }
+            // 1. Parse the body once; every path below is evaluated against this document
+            Object document = Configuration.defaultConfiguration().jsonProvider().parse(body, "UTF-8");
+            boolean hasNamespacePath = namespaceJsonPath != null && !namespaceJsonPath.trim().isEmpty();
+
+            // 2. Extract namespace subtree via JsonPath or default to full JSON, normalized to a list of nodes
+            Object extracted = hasNamespacePath ? compile(namespaceJsonPath).read(document) : document;
+            List<?> nodes = extracted instanceof List<?> list ? list : Collections.singletonList(extracted);
             logger.debug("After namespace JsonPath ('{}'), found {} node(s)", namespaceJsonPath, nodes.size());
 
-            // 3. Extract only requested fields
-            List<Map<String, Object>> result = new ArrayList<>();
-            for (JsonNode node : nodes) {
-                Map<String, Object> row = new HashMap<>();
-                for (Field f : fields) {
-                    // Debug: log the jsonPath value from schema
-                    logger.debug("Processing field '{}' with configured jsonPath='{}'", f.getName(), f.getJsonPath());
-                    Object value = null;
-                    String fieldPath = null;
-
-                    // Determine JsonPath: field-level override or namespace default
-                    if (f.getJsonPath() != null && !f.getJsonPath().trim().isEmpty()) {
-                        fieldPath = f.getJsonPath();
-                    } else if (namespaceJsonPath != null && !namespaceJsonPath.trim().isEmpty()) {
-                        fieldPath = namespaceJsonPath + "." + f.getName();
-                    }
+            // 3. Resolve each field's path once: relative to each node when it lies under the
+            //    namespace path, otherwise against the whole document (same value for every node)
+            JsonPath[] nodePaths = new JsonPath[fields.size()];
+            Object[] documentValues = new Object[fields.size()];
+            for (int c = 0; c < fields.size(); c++) {
+                Field f = fields.get(c);
+                logger.debug("Processing field '{}' with configured jsonPath='{}'", f.getName(), f.getJsonPath());
+                String fieldPath = null;
 
-                    // Attempt extraction via JsonPath
-                    if (fieldPath != null) {
-                        try {
-                            value = JsonPath.read(rawBody, fieldPath);
-                            logger.debug("Extracted '{}' via JsonPath '{}' -> {}", f.getName(), fieldPath, value);
-                        } catch (Exception e) {
-                            logger.warn("JsonPath '{}' for field '{}' did not match", fieldPath, f.getName());
-                        }
-                    }
+                // Determine JsonPath: field-level override or namespace default
+                if (f.getJsonPath() != null && !f.getJsonPath().trim().isEmpty()) {
+                    fieldPath = f.getJsonPath();
+                } else if (hasNamespacePath) {
+                    fieldPath = namespaceJsonPath + "." + f.getName();
+                }
+                if (fieldPath == null) {
+                    continue;
+                }
+                String relative = hasNamespacePath ? relativePath(namespaceJsonPath, fieldPath) : null;
+                if (relative != null) {
+                    nodePaths[c] = compile(relative);
+                } else {
+                    documentValues[c] = read(compile(fieldPath), document, f);
+                }
+            }
+
+            // 4. Extract only requested fields
+            RowSet result = new RowSet(new RowSet.Header(fields.stream().map(Field::getName).toList()));
+            for (Object node : nodes) {
+                Object[] row = new Object[fields.size()];
+                for (int c = 0; c < row.length; c++) {
+                    Field f = fields.get(c);
+                    Object value = nodePaths[c] != null ? read(nodePaths[c], node, f) : documentValues[c];
 
                     // Fallback to namespace subtree lookup
-                    if (value == null && node.has(f.getName())) {
-                        JsonNode vNode = node.get(f.getName());
-                        value = vNode.isTextual()
-                                ? vNode.asText()
-                                : objectMapper.treeToValue(vNode, Object.class);
+                    if (value == null && node instanceof Map<?, ?> m && m.containsKey(f.getName())) {
+                        value = m.get(f.getName());
                     }
 
-                    row.put(f.getName(), value);
+                    row[c] = value;
                 }
-                result.add(row);
+                result.addValues(row);
             }
 
             return result;
@@ -132,4 +185,142 @@ public class ApiClient {
             throw new RuntimeException("Error processing API response", e);
         }
     }
+
+    /**
+     * Like {@link #executeQuery}, but hands each row to {@code sink} as soon as it
+     * has been parsed when streaming extraction applies, so the response is never
+     * held in memory. Rows are handed on on the calling thread.
+     */
+    public void streamQuery(
+            String apiUrl,
+            String httpMethod,
+            Map<String, Object> queryParams,
+            String namespaceJsonPath,
+            List<Field> fields,
+            Consumer<Map<String, Object>> sink
+    ) {
+        JsonStreamExtractor extractor = streamingExtraction ? extractorFor(namespaceJsonPath, fields) : null;
+        if (extractor == null) {
+            executeQuery(apiUrl, httpMethod, queryParams, namespaceJsonPath, fields).forEach(sink);
+            return;
+        }
+        logger.info("Making streaming API request to: {}", apiUrl);
+        RowSet.Header header = new RowSet.Header(fields.stream().map(Field::getName).toList());
+        HttpRequest request = buildRequest(apiUrl, httpMethod, queryParams);
+        AsyncPermits permits = permitsFor(request.uri());
+        join(permits.acquire());
+        try {
+            HttpResponse<InputStream> response = join(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()));
+            try (InputStream body = openBody(response); JsonParser parser = objectMapper.createParser(body)) {
+                extractor.extract(parser, values -> sink.accept(new Row(header, values)));
+            } catch (IOException e) {
+                logger.error("Error processing API response", e);
+                throw new RuntimeException("Error processing API response", e);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * The URL is used as given, so it must already be encoded (this lets callers
+     * pass pre-encoded values in it); query parameters are encoded here.
+     */
+    private HttpRequest buildRequest(String apiUrl, String httpMethod, Map<String, Object> queryParams) {
+        // Build URL with query parameters
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(apiUrl);
+        queryParams.forEach((key, value) -> {
+            String name = UriUtils.encodeQueryParam(key, StandardCharsets.UTF_8);
+            if (value == null) {
+                builder.queryParam(name);
+            } else {
+                builder.queryParam(name, UriUtils.encodeQueryParam(String.valueOf(value), StandardCharsets.UTF_8));
+            }
+        });
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(builder.build(true).toUri())
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Accept", "application/json")
+                .method(httpMethod, HttpRequest.BodyPublishers.noBody());
+        if (gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        return request.build();
+    }
+
+    /** The response body, decompressed if needed; fails on an error status. */
+    private static InputStream openBody(HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+        if (response.statusCode() >= 400) {
+            body.close();
+            throw new RuntimeException("API request to " + response.uri() + " failed with HTTP status " + response.statusCode());
+        }
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        return "gzip".equalsIgnoreCase(encoding) ? new GZIPInputStream(body) : body;
+    }
+
+    private AsyncPermits permitsFor(URI uri) {
+        return hostPermits.computeIfAbsent(uri.getScheme() + "://" + uri.getRawAuthority(),
+                host -> new AsyncPermits(Math.max(1, maxConnectionsPerHost)));
+    }
+
+    private static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("API request failed", e.getCause());
+        }
+    }
+
+    private JsonStreamExtractor extractorFor(String namespaceJsonPath, List<Field> fields) {
+        StringBuilder key = new StringBuilder(String.valueOf(namespaceJsonPath));
+        for (Field f : fields) {
+            key.append('|').append(f.getName()).append('=').append(f.getJsonPath());
+        }
+        return extractors.computeIfAbsent(key.toString(), k -> {
+            JsonStreamExtractor extractor = JsonStreamExtractor.compile(namespaceJsonPath, fields);
+            if (extractor == null) {
+                logger.info("JsonPaths of '{}' can't be streamed; its responses are parsed whole", namespaceJsonPath);
+            }
+            return Optional.ofNullable(extractor);
+        }).orElse(null);
+    }
+
+    private Object read(JsonPath path, Object json, Field f) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            Object value = path.read(json);
+            logger.debug("Extracted '{}' via JsonPath '{}' -> {}", f.getName(), path.getPath(), value);
+            return value;
+        } catch (Exception e) {
+            logger.warn("JsonPath '{}' for field '{}' did not match", path.getPath(), f.getName());
+            return null;
+        }
+    }
+
+    private JsonPath compile(String path) {
+        return compiledPaths.computeIfAbsent(path, JsonPath::compile);
+    }
+
+    /**
+     * The part of fieldPath below namespacePath as a path of its own, e.g.
+     * {@code $.name} for {@code $.data.profile.name} under {@code $.data.profile};
+     * null if fieldPath does not start with namespacePath.
+     */
+    static String relativePath(String namespacePath, String fieldPath) {
+        String ns = namespacePath.trim();
+        String field = fieldPath.trim();
+        if (field.length() > ns.length() && field.startsWith(ns)) {
+            char next = field.charAt(ns.length());
+            if (next == '.' || next == '[') {
+                return "$" + field.substring(ns.length());
+            }
+        }
+        return null;
+    }
 }
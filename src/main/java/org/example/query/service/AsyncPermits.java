@@ -0,0 +1,55 @@
+package org.example.query.service;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Caps how much work is in flight without blocking: callers over the limit get
+ * a future that completes, in arrival order, when running work releases its permit,
+ * or none once too many are already waiting.
+ */
+final class AsyncPermits {
+    private int available;
+    private final ArrayDeque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    AsyncPermits(int permits) {
+        this.available = permits;
+    }
+
+    CompletableFuture<Void> acquire() {
+        return acquire(Integer.MAX_VALUE);
+    }
+
+    /** The caller's turn, or null if maxWaiting callers are already waiting. */
+    CompletableFuture<Void> acquire(int maxWaiting) {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiting.size() >= maxWaiting) {
+                return null;
+            }
+            CompletableFuture<Void> turn = new CompletableFuture<>();
+            waiting.add(turn);
+            return turn;
+        }
+    }
+
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        next.complete(null);
+    }
+
+    /** Callers currently waiting for a permit. */
+    synchronized int waiting() {
+        return waiting.size();
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.schema.model.Namespace;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * How long {@link CacheService} keeps a value and when it reloads it:
+ * the TTL, an optional stale-while-revalidate grace period, and an optional
+ * refresh-ahead point expressed as a fraction of the TTL. Policies built from
+ * a namespace also carry a version of its definition, so that values cached
+ * under an older definition (e.g. in a snapshot) can be told apart.
+ */
+public final class CachePolicy {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // namespaces are replaced, not modified, when their schema is reloaded
+    private static final Map<Namespace, Long> VERSIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final long ttlSeconds;
+    private final long staleSeconds;
+    private final double refreshAheadFraction;
+    private final Namespace namespace;
+    private long schemaVersion = -1;
+
+    public CachePolicy(long ttlSeconds, long staleSeconds, double refreshAheadFraction) {
+        this(ttlSeconds, staleSeconds, refreshAheadFraction, null);
+    }
+
+    private CachePolicy(long ttlSeconds, long staleSeconds, double refreshAheadFraction, Namespace namespace) {
+        this.namespace = namespace;
+        this.ttlSeconds = ttlSeconds;
+        this.staleSeconds = Math.max(0, staleSeconds);
+        this.refreshAheadFraction = refreshAheadFraction > 0 && refreshAheadFraction < 1 ? refreshAheadFraction : 0;
+    }
+
+    /** Plain TTL, no stale serving or refresh-ahead. */
+    public static CachePolicy ttl(long ttlSeconds) {
+        return new CachePolicy(ttlSeconds, 0, 0);
+    }
+
+    public static CachePolicy of(Namespace ns) {
+        return new CachePolicy(ns.getCacheTTL(), ns.getStaleWhileRevalidate(), ns.getRefreshAheadFraction(), ns);
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public long getStaleSeconds() {
+        return staleSeconds;
+    }
+
+    /** 0 when refresh-ahead is off. */
+    public double getRefreshAheadFraction() {
+        return refreshAheadFraction;
+    }
+
+    /**
+     * Checksum of the namespace definition this policy was built from, or 0 if
+     * it wasn't built from one. Computed on first use.
+     */
+    public long getSchemaVersion() {
+        if (schemaVersion < 0) {
+            schemaVersion = namespace == null ? 0 : VERSIONS.computeIfAbsent(namespace, CachePolicy::checksum);
+        }
+        return schemaVersion;
+    }
+
+    private static long checksum(Namespace ns) {
+        try {
+            CRC32C crc = new CRC32C();
+            crc.update(JSON.writeValueAsBytes(ns));
+            return crc.getValue();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to fingerprint namespace: " + ns.getNamespace(), e);
+        }
+    }
+}
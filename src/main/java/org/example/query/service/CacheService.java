@@ -1,99 +1,1123 @@
 package org.example.query.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.query.model.RowSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.HashSet;
 
 /**
- * Simple in-memory cache service with per-entry TTL support.
+ * In-memory cache service with per-entry TTL support, bounded by the estimated
+ * size of its values. Entries are kept in Caffeine caches (W-TinyLFU admission
+ * and eviction): one region per namespace listed under {@code cache.regions},
+ * and a shared default region for everything else. The region of a key is the
+ * part before "::" (cache key patterns look like {@code Namespace::{id}}).
+ * Behind the heap there may be an off-heap tier, a startup snapshot and a
+ * {@link SharedCache}, consulted in that order on a miss.
  */
 @Service
 public class CacheService {
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
 
+    private static final String DEFAULT_REGION = "default";
+
     private static class CacheEntry {
+        // writtenAt, ttl, stale, refresh-at and schema version, then the tags, ahead of the encoded rows
+        private static final int PREFIX_BYTES = 5 * Long.BYTES;
+
         private final Object value;
-        private final long expiresAt;
+        private final long writtenAt;
+        private final long ttlNanos;
+        private final long staleNanos;
+        // age after which a read triggers a background reload, or Long.MAX_VALUE
+        private final long refreshAtNanos;
+        private final long schemaVersion;
+        private final Set<String> tags;
+        private final int weight;
 
-        CacheEntry(Object value, long ttlSeconds) {
+        CacheEntry(String key, Object value, CachePolicy policy, Set<String> tags, long now) {
             this.value = value;
-            this.expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+            this.tags = tags;
+            this.writtenAt = now;
+            this.ttlNanos = TimeUnit.SECONDS.toNanos(policy.getTtlSeconds());
+            this.staleNanos = TimeUnit.SECONDS.toNanos(policy.getStaleSeconds());
+            this.refreshAtNanos = policy.getRefreshAheadFraction() > 0
+                    ? (long) (ttlNanos * policy.getRefreshAheadFraction())
+                    : Long.MAX_VALUE;
+            this.schemaVersion = policy.getSchemaVersion();
+            this.weight = CacheWeights.of(key, value);
+        }
+
+        /**
+         * Rebuilds an encoded entry, keeping its original write time and policy.
+         * timeOffset is what was added to the write time when encoding.
+         */
+        CacheEntry(String key, ByteBuffer encoded, long timeOffset) {
+            this.writtenAt = encoded.getLong() - timeOffset;
+            this.ttlNanos = encoded.getLong();
+            this.staleNanos = encoded.getLong();
+            this.refreshAtNanos = encoded.getLong();
+            this.schemaVersion = encoded.getLong();
+            this.tags = readTags(encoded);
+            this.value = RowCodec.decode(encoded);
+            this.weight = CacheWeights.of(key, value);
+        }
+
+        /**
+         * Encodes the entry with timeOffset added to its write time, or returns
+         * null if its value is not rows.
+         */
+        @SuppressWarnings("unchecked")
+        byte[] encode(long timeOffset) {
+            if (!(value instanceof List<?> list) || !list.stream().allMatch(r -> r instanceof Map)) {
+                return null;
+            }
+            byte[] rows = RowCodec.encode(RowSet.copyOf((List<Map<String, Object>>) value));
+            List<byte[]> tagBytes = new ArrayList<>(tags.size());
+            int size = PREFIX_BYTES + Integer.BYTES + rows.length;
+            for (String tag : tags) {
+                byte[] b = tag.getBytes(StandardCharsets.UTF_8);
+                tagBytes.add(b);
+                size += Integer.BYTES + b.length;
+            }
+            ByteBuffer out = ByteBuffer.allocate(size)
+                    .putLong(writtenAt + timeOffset)
+                    .putLong(ttlNanos)
+                    .putLong(staleNanos)
+                    .putLong(refreshAtNanos)
+                    .putLong(schemaVersion)
+                    .putInt(tagBytes.size());
+            for (byte[] b : tagBytes) {
+                out.putInt(b.length).put(b);
+            }
+            return out.put(rows).array();
+        }
+
+        /** Reads the tags of an encoded entry, given a buffer positioned at them. */
+        static Set<String> readTags(ByteBuffer encoded) {
+            int count = encoded.getInt();
+            if (count == 0) {
+                return Collections.emptySet();
+            }
+            Set<String> tags = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++) {
+                byte[] b = new byte[encoded.getInt()];
+                encoded.get(b);
+                tags.add(new String(b, StandardCharsets.UTF_8));
+            }
+            return tags;
+        }
+
+        /** Adds timeOffset to the write time of an encoded entry, in place. */
+        static byte[] shiftTime(byte[] encoded, long timeOffset) {
+            ByteBuffer b = ByteBuffer.wrap(encoded);
+            b.putLong(0, b.getLong(0) + timeOffset);
+            return encoded;
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() > expiresAt;
+        /** Write time plus TTL plus stale grace of an encoded entry. */
+        static long deadlineOf(byte[] encoded) {
+            ByteBuffer b = ByteBuffer.wrap(encoded);
+            return b.getLong(0) + b.getLong(Long.BYTES) + b.getLong(2 * Long.BYTES);
+        }
+
+        long getDeadline() {
+            return writtenAt + getLifetimeNanos();
+        }
+
+        boolean isExpired(long now) {
+            return now - writtenAt >= getLifetimeNanos();
         }
 
         Object getValue() {
             return value;
         }
 
-        long getExpiresAt() {
-            return expiresAt;
+        boolean isFresh(long now) {
+            return now - writtenAt < ttlNanos;
+        }
+
+        boolean needsRefresh(long now) {
+            return now - writtenAt >= refreshAtNanos;
+        }
+
+        /** TTL plus the stale grace period: how long the entry is kept at all. */
+        long getLifetimeNanos() {
+            return ttlNanos + staleNanos;
+        }
+
+        int getWeight() {
+            return weight;
         }
     }
 
-    private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    /**
+     * Each entry lives for its own TTL (plus stale grace) from the time it was written;
+     * reads don't extend it, and entries promoted from off-heap keep their original deadline.
+     */
+    private static class EntryExpiry implements Expiry<String, CacheEntry> {
+        @Override
+        public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+            return Math.max(0, entry.writtenAt + entry.getLifetimeNanos() - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> regionLimits;
+    private final ConcurrentMap<String, Cache<String, CacheEntry>> regions = new ConcurrentHashMap<>();
+    // one in-flight load per key; concurrent misses wait on the same future
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final TagIndex tagIndex = new TagIndex();
+    // expiry is active: Caffeine keeps entries on a timing wheel and this thread removes them as their TTL passes
+    private final ScheduledExecutorService expiryThread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+    // coarse cache clock, advanced by the expiry thread
+    private volatile long clockNanos = System.nanoTime();
+
+    // second tier for entries evicted from the heap; null when disabled
+    private volatile OffHeapTier offHeap;
+    // entries of the snapshot found at startup not yet restored; null when there was none
+    private volatile CacheSnapshot snapshot;
+    private Path snapshotFile;
+
+    // shared tier and this instance's id on its invalidation channel; null when there is none
+    private final SharedCache shared;
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final ConcurrentLinkedQueue<String> pendingInvalidations = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService refreshExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-refresh-", 0).factory());
+
+    private final Counter coalescedWaiters;
+    private final Counter loadTimeouts;
+    private final Counter staleServed;
+    private final Counter refreshes;
+    private final Counter refreshFailures;
+    private final Counter restored;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Counter invalidationsSent;
+    private final Counter invalidationBatches;
+    private final Counter invalidationsReceived;
+
+    @Value("${cache.load.timeout-ms:10000}")
+    private long loadTimeoutMs;
+
+    @Value("${cache.max-weight-bytes:67108864}")
+    private long defaultMaxWeight;
+
+    @Value("${cache.clock-resolution-ms:10}")
+    private long clockResolutionMs;
+
+    @Value("${cache.off-heap.max-bytes:0}")
+    private long offHeapMaxBytes;
+
+    @Value("${cache.snapshot.directory:}")
+    private String snapshotDirectory;
+
+    @Value("${cache.snapshot.interval-seconds:300}")
+    private long snapshotIntervalSeconds;
+
+    @Value("${cache.shared.invalidation-flush-ms:20}")
+    private long invalidationFlushMs;
+
+    @Value("${cache.shared.invalidation-batch-size:1000}")
+    private int invalidationBatchSize;
+
+    @Autowired
+    public CacheService(MeterRegistry meterRegistry, Environment environment, ObjectProvider<SharedCache> sharedCache) {
+        this.meterRegistry = meterRegistry;
+        this.shared = sharedCache.getIfAvailable();
+        // cache.regions.<namespace>=<max bytes>
+        this.regionLimits = Binder.get(environment)
+                .bind("cache.regions", Bindable.mapOf(String.class, Long.class))
+                .orElse(Collections.emptyMap());
+        this.coalescedWaiters = Counter.builder("cache.load.coalesced")
+                .description("Cache misses that waited on another caller's in-flight load")
+                .register(meterRegistry);
+        this.loadTimeouts = Counter.builder("cache.load.timeouts")
+                .description("Coalesced waiters that gave up waiting for an in-flight load")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("cache.stale.served")
+                .description("Reads answered with a value past its TTL while it was reloaded")
+                .register(meterRegistry);
+        this.refreshes = Counter.builder("cache.refresh")
+                .description("Background reloads started by stale-while-revalidate or refresh-ahead")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("cache.refresh.failures")
+                .description("Background reloads that failed; the previous value stays cached")
+                .register(meterRegistry);
+        this.restored = Counter.builder("cache.snapshot.restored")
+                .description("Entries restored from the startup snapshot on first request")
+                .register(meterRegistry);
+        this.sharedHits = Counter.builder("cache.shared.hits")
+                .description("Local misses answered by the shared tier")
+                .register(meterRegistry);
+        this.sharedMisses = Counter.builder("cache.shared.misses")
+                .description("Local misses the shared tier could not answer")
+                .register(meterRegistry);
+        this.invalidationsSent = Counter.builder("cache.shared.invalidations.sent")
+                .description("Keys broadcast to other instances as invalidated")
+                .register(meterRegistry);
+        this.invalidationBatches = Counter.builder("cache.shared.invalidations.batches")
+                .description("Invalidation messages broadcast")
+                .register(meterRegistry);
+        this.invalidationsReceived = Counter.builder("cache.shared.invalidations.received")
+                .description("Keys dropped locally on another instance's invalidation")
+                .register(meterRegistry);
+        Gauge.builder("cache.load.inflight", inFlight, Map::size)
+                .description("Cache keys currently being loaded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void startClock() {
+        expiryThread.scheduleAtFixedRate(() -> clockNanos = System.nanoTime(),
+                clockResolutionMs, clockResolutionMs, TimeUnit.MILLISECONDS);
+        if (offHeapMaxBytes > 0) {
+            int capacity = (int) Math.min(offHeapMaxBytes, Integer.MAX_VALUE);
+            offHeap = new OffHeapTier(capacity, meterRegistry, key -> {
+                // the key was only held off-heap unless it has since been cached again
+                if (!regionFor(key).asMap().containsKey(key)) {
+                    tagIndex.untag(key);
+                }
+            });
+            logger.info("Off-heap cache tier enabled with {} bytes", capacity);
+        }
+        if (!snapshotDirectory.isBlank()) {
+            snapshotFile = Paths.get(snapshotDirectory, "cache-snapshot.bin");
+            openSnapshot();
+            expiryThread.scheduleWithFixedDelay(() -> {
+                try {
+                    refreshExecutor.execute(this::writeSnapshot);
+                } catch (RejectedExecutionException e) {
+                    // shutting down; the final snapshot is written by shutdown()
+                }
+            }, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+        if (shared != null) {
+            shared.subscribe(this::onInvalidation);
+            expiryThread.scheduleWithFixedDelay(() -> {
+                if (!pendingInvalidations.isEmpty()) {
+                    try {
+                        refreshExecutor.execute(this::flushInvalidations);
+                    } catch (RejectedExecutionException e) {
+                        // shutting down; shutdown() flushes what's left
+                    }
+                }
+            }, invalidationFlushMs, invalidationFlushMs, TimeUnit.MILLISECONDS);
+            logger.info("Using shared cache tier {} as node {}", shared.getClass().getSimpleName(), Long.toHexString(nodeId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotFile != null) {
+            writeSnapshot();
+        }
+        if (shared != null) {
+            flushInvalidations();
+        }
+        expiryThread.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
 
     /**
-     * Retrieves a cached value, or null if absent or expired.
+     * Retrieves a cached value, or null if absent or expired (including values
+     * only kept for stale-while-revalidate).
      */
-    @SuppressWarnings("unchecked")
     public <T> T get(String key) {
-        CacheEntry entry = cache.get(key);
-        if (entry == null || entry.isExpired()) {
+        return get(key, null);
+    }
+
+    /**
+     * Like {@link #get(String)}, and also restores the key from the startup
+     * snapshot if it was cached there under the same policy's schema version.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, CachePolicy policy) {
+        CacheEntry entry = lookup(key, true, policy);
+        return entry != null && entry.isFresh(clockNanos) ? (T) entry.getValue() : null;
+    }
+
+    /**
+     * Returns the value held for key even if past its TTL, without counting a
+     * hit or miss or consulting the off-heap tier, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(String key) {
+        CacheEntry entry = regionFor(key).asMap().get(key);
+        return entry != null ? (T) entry.getValue() : null;
+    }
+
+    /**
+     * Looks key up in the heap region, then in the off-heap tier, the startup
+     * snapshot and the shared tier, in that order; an entry found behind the heap
+     * is moved back into it.
+     */
+    private CacheEntry lookup(String key, boolean recordStats, CachePolicy policy) {
+        Cache<String, CacheEntry> region = regionFor(key);
+        // the map view reads without counting a hit or miss
+        CacheEntry entry = recordStats ? region.getIfPresent(key) : region.asMap().get(key);
+        if (entry == null && offHeap != null) {
+            entry = promote(key, region);
+        }
+        if (entry == null && snapshot != null && policy != null) {
+            entry = restore(key, policy, region);
+        }
+        if (entry == null && shared != null && policy != null) {
+            entry = fetchShared(key, policy, region);
+        }
+        if (entry == null) {
             logger.debug("CACHE MISS or EXPIRED for key='{}'", key);
-            cache.remove(key);
             return null;
         }
         logger.debug("CACHE HIT for key='{}'", key);
-        return (T) entry.getValue();
+        return entry;
+    }
+
+    /**
+     * Moves key's off-heap copy back to the heap with its remaining TTL. Runs
+     * under the key's lock, like {@link #evictLocal} and {@link #put}, so a copy
+     * they drop can't come back.
+     */
+    private CacheEntry promote(String key, Cache<String, CacheEntry> region) {
+        return region.asMap().computeIfAbsent(key, k -> {
+            byte[] encoded = offHeap.take(k);
+            if (encoded == null) {
+                return null;
+            }
+            CacheEntry entry = new CacheEntry(k, ByteBuffer.wrap(encoded), 0);
+            if (entry.isExpired(clockNanos)) {
+                tagIndex.untag(k);
+                return null;
+            }
+            logger.debug("Promoting key='{}' from off-heap", k);
+            tagIndex.tag(k, entry.tags);
+            return entry;
+        });
+    }
+
+    /**
+     * Moves a row entry evicted from the heap for size into the {@link OffHeapTier}
+     * (enabled by {@code cache.off-heap.max-bytes}), encoded with {@link RowCodec};
+     * returns false if it was dropped instead. Called from the region's eviction
+     * listener, under the key's lock.
+     */
+    private boolean demote(String key, CacheEntry entry) {
+        OffHeapTier tier = offHeap;
+        if (tier == null || entry.isExpired(clockNanos)) {
+            return false;
+        }
+        try {
+            byte[] encoded = entry.encode(0);
+            if (encoded != null) {
+                return tier.put(key, encoded);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Could not move key='{}' off-heap: {}", key, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Restores key from the startup snapshot on its first request, unless it has
+     * expired or was cached under a different version of its namespace's definition.
+     */
+    private CacheEntry restore(String key, CachePolicy policy, Cache<String, CacheEntry> region) {
+        return region.asMap().computeIfAbsent(key, k -> {
+            byte[] encoded = snapshot.take(k);
+            if (encoded == null) {
+                return null;
+            }
+            CacheEntry entry = new CacheEntry(k, ByteBuffer.wrap(encoded), wallClockOffset());
+            if (entry.isExpired(clockNanos) || entry.schemaVersion != policy.getSchemaVersion()) {
+                logger.debug("Discarding snapshot entry for key='{}': expired or schema changed", k);
+                tagIndex.untag(k);
+                return null;
+            }
+            logger.debug("Restoring key='{}' from snapshot", k);
+            restored.increment();
+            tagIndex.tag(k, entry.tags);
+            return entry;
+        });
+    }
+
+    /**
+     * Looks a local miss up in the shared tier (see {@code cache.shared.type}),
+     * this cache then acting as a near cache in front of it.
+     */
+    private CacheEntry fetchShared(String key, CachePolicy policy, Cache<String, CacheEntry> region) {
+        byte[] encoded;
+        try {
+            encoded = shared.get(key);
+        } catch (RuntimeException e) {
+            logger.warn("Shared cache lookup of key '{}' failed: {}", key, e.getMessage());
+            encoded = null;
+        }
+        CacheEntry entry = encoded != null ? new CacheEntry(key, ByteBuffer.wrap(encoded), wallClockOffset()) : null;
+        if (entry == null || entry.isExpired(clockNanos) || entry.schemaVersion != policy.getSchemaVersion()) {
+            sharedMisses.increment();
+            return null;
+        }
+        logger.debug("Shared cache HIT for key='{}'", key);
+        sharedHits.increment();
+        tagIndex.tag(key, entry.tags);
+        region.asMap().putIfAbsent(key, entry);
+        return entry;
+    }
+
+    /**
+     * Writes an entry through to the shared tier off the request path. Other
+     * instances are not told: their copies expire on their own, and only
+     * invalidations are broadcast.
+     */
+    private void writeShared(String key, CacheEntry entry) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long offset = wallClockOffset();
+                    byte[] encoded = entry.encode(offset);
+                    long ttlMillis = TimeUnit.NANOSECONDS.toMillis(entry.getDeadline() - clockNanos);
+                    if (encoded != null && ttlMillis > 0) {
+                        shared.put(key, encoded, ttlMillis, entry.tags);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Writing key '{}' to the shared cache failed: {}", key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private void onInvalidation(byte[] message) {
+        InvalidationMessage m = InvalidationMessage.decode(message);
+        if (m.getOrigin() == nodeId) {
+            return;
+        }
+        if (m.isClear()) {
+            logger.debug("Clearing cache, cleared by node {}", Long.toHexString(m.getOrigin()));
+            clearLocal();
+            return;
+        }
+        logger.debug("Dropping {} key(s) invalidated by node {}", m.getKeys().size(), Long.toHexString(m.getOrigin()));
+        m.getKeys().forEach(this::evictLocal);
+        invalidationsReceived.increment(m.getKeys().size());
+    }
+
+    /**
+     * Broadcasts the keys queued for invalidation, at most
+     * cache.shared.invalidation-batch-size per message.
+     */
+    private void flushInvalidations() {
+        Set<String> batch = new LinkedHashSet<>();
+        String key;
+        while ((key = pendingInvalidations.poll()) != null) {
+            batch.add(key);
+            if (batch.size() >= invalidationBatchSize) {
+                publishInvalidations(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publishInvalidations(batch);
+        }
+    }
+
+    private void publishInvalidations(Set<String> keys) {
+        try {
+            shared.publish(InvalidationMessage.encode(nodeId, keys));
+            invalidationsSent.increment(keys.size());
+            invalidationBatches.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Broadcasting {} cache invalidation(s) failed: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /** Nanoseconds to add to a cache clock time to get wall-clock time. */
+    private long wallClockOffset() {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - clockNanos;
+    }
+
+    /**
+     * Maps the {@link CacheSnapshot} left in {@code cache.snapshot.directory} by the
+     * previous run; its entries are restored one by one as they are requested.
+     */
+    private void openSnapshot() {
+        try {
+            snapshot = CacheSnapshot.open(snapshotFile, System.currentTimeMillis());
+            if (snapshot != null) {
+                // index the tags up front so invalidation also reaches entries not restored yet
+                snapshot.forEachPayload((key, payload) ->
+                        tagIndex.tag(key, CacheEntry.readTags(payload.position(CacheEntry.PREFIX_BYTES))));
+                logger.info("Mapped cache snapshot {}: {} entries to restore, {} expired",
+                        snapshotFile, snapshot.size(), snapshot.getSkipped());
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the row entries of both tiers, plus snapshot entries not restored
+     * yet, to the snapshot file. Write times are stored as wall-clock time.
+     */
+    private synchronized void writeSnapshot() {
+        long start = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        long offset = wallClockOffset();
+        long now = clockNanos;
+        Map<String, CacheSnapshot.Record> records = new LinkedHashMap<>();
+        CacheSnapshot pending = snapshot;
+        if (pending != null) {
+            pending.remaining(nowMillis).forEach(r -> records.put(r.getKey(), r));
+        }
+        OffHeapTier tier = offHeap;
+        if (tier != null) {
+            tier.forEach((key, encoded) -> {
+                long deadline = CacheEntry.deadlineOf(encoded);
+                if (deadline > now) {
+                    records.put(key, new CacheSnapshot.Record(key,
+                            TimeUnit.NANOSECONDS.toMillis(deadline + offset), CacheEntry.shiftTime(encoded, offset)));
+                }
+            });
+        }
+        regions.values().forEach(region -> region.asMap().forEach((key, entry) -> {
+            if (entry.isExpired(now)) {
+                return;
+            }
+            try {
+                byte[] encoded = entry.encode(offset);
+                if (encoded != null) {
+                    records.put(key, new CacheSnapshot.Record(key,
+                            TimeUnit.NANOSECONDS.toMillis(entry.getDeadline() + offset), encoded));
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Leaving key='{}' out of the snapshot: {}", key, e.getMessage());
+            }
+        }));
+        try {
+            int written = CacheSnapshot.write(snapshotFile, records.values());
+            logger.info("Wrote cache snapshot {} with {} entries in {} ms", snapshotFile, written,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            logger.warn("Failed to write cache snapshot {}: {}", snapshotFile, e.getMessage());
+        }
     }
 
     /**
      * Stores a value in the cache under the given key for ttlSeconds.
      */
     public void put(String key, Object value, long ttlSeconds) {
-        if (ttlSeconds <= 0) {
+        put(key, value, CachePolicy.ttl(ttlSeconds));
+    }
+
+    /**
+     * Stores a value in the cache under the given key with the given policy.
+     */
+    public void put(String key, Object value, CachePolicy policy) {
+        put(key, value, policy, Collections.emptySet());
+    }
+
+    /**
+     * Stores a value in the cache under the given key with the given policy and tags.
+     */
+    public void put(String key, Object value, CachePolicy policy, Collection<String> tags) {
+        if (policy.getTtlSeconds() <= 0) {
             logger.debug("TTL non-positive for key='{}', not caching", key);
             return;
         }
-        logger.debug("CACHING key='{}' for {}s", key, ttlSeconds);
-        CacheEntry entry = new CacheEntry(value, ttlSeconds);
-        cache.put(key, entry);
+        logger.debug("CACHING key='{}' for {}s (+{}s stale)", key, policy.getTtlSeconds(), policy.getStaleSeconds());
+        Set<String> tagSet = tags.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new LinkedHashSet<>(tags));
+        CacheEntry entry = new CacheEntry(key, value, policy, tagSet, clockNanos);
+        tagIndex.tag(key, tagSet);
+        regionFor(key).asMap().compute(key, (k, previous) -> {
+            // older copies in other tiers are dropped under the key's lock,
+            // so an eviction of the previous entry can't demote it after this
+            dropOtherTiers(k);
+            return entry;
+        });
+        if (shared != null) {
+            writeShared(key, entry);
+        }
+    }
+
+    /**
+     * Returns the cached value for key, loading and caching it on a miss.
+     * At most one load per key runs at a time: concurrent callers that miss
+     * on the same key wait (up to cache.load.timeout-ms) for that load and
+     * receive its value or its exception.
+     */
+    public <T> T getOrLoad(String key, long ttlSeconds, Supplier<T> loader) {
+        return getOrLoad(key, CachePolicy.ttl(ttlSeconds), loader);
+    }
+
+    /**
+     * Like {@link #getOrLoad(String, long, Supplier)}, and additionally:
+     * a value past its TTL but within the policy's stale window is returned
+     * immediately while one background reload replaces it, and a fresh value
+     * read after the policy's refresh-ahead point is reloaded in the background.
+     */
+    public <T> T getOrLoad(String key, CachePolicy policy, Supplier<T> loader) {
+        return getOrLoad(key, policy, loader, value -> Collections.emptySet());
+    }
+
+    /**
+     * Like {@link #getOrLoad(String, CachePolicy, Supplier)}, tagging each loaded
+     * value with the tags computed for it.
+     */
+    public <T> T getOrLoad(String key, CachePolicy policy, Supplier<T> loader,
+                           Function<? super T, ? extends Collection<String>> tagger) {
+        return getOrLoad(key, policy, value -> true, current -> loader.get(), tagger);
+    }
+
+    /**
+     * Like {@link #getOrLoad(String, CachePolicy, Supplier, Function)}, for values
+     * a caller may find unusable, such as cached rows lacking requested fields.
+     * A cached value failing {@code usable} is loaded again as if it were missing,
+     * under the same single-flight. The loader, for loads and background refreshes
+     * alike, receives the value currently held in any tier (possibly stale), or
+     * null, so that it can extend rather than replace it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, CachePolicy policy, Predicate<? super T> usable,
+                           Function<? super T, ? extends T> loader,
+                           Function<? super T, ? extends Collection<String>> tagger) {
+        CacheEntry cached = lookup(key, true, policy);
+        T current = cached != null ? (T) cached.getValue() : null;
+        if (current != null && usable.test(current)) {
+            refreshIfDue(key, policy, cached, () -> loader.apply(current), tagger);
+            return current;
+        }
+
+        while (true) {
+            CompletableFuture<Object> load = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+            if (existing != null) {
+                coalescedWaiters.increment();
+                logger.debug("Joining in-flight load for key='{}'", key);
+                T value = (T) await(key, existing);
+                if (value != null && usable.test(value)) {
+                    return value;
+                }
+                // the load we joined doesn't serve this caller (e.g. it fetched fewer fields)
+                continue;
+            }
+            return load(key, policy, load, usable, loader, tagger);
+        }
+    }
+
+    /**
+     * Batch form of {@link #getOrLoad(String, CachePolicy, Predicate, Function, Function)}:
+     * returns the values of the keys, in order. Usable cached values are served as
+     * getOrLoad serves them, stale ones while {@code refresher} reloads them in the
+     * background. The other keys are loaded together by one call of
+     * {@code batchLoader}, given each key's current value (or null), except keys
+     * another caller is already loading, whose load is awaited instead.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getOrLoadAll(List<String> keys, CachePolicy policy, Predicate<? super T> usable,
+                                    BiFunction<String, ? super T, ? extends T> refresher,
+                                    Function<Map<String, T>, Map<String, ? extends T>> batchLoader,
+                                    BiFunction<String, ? super T, ? extends Collection<String>> tagger) {
+        Map<String, T> values = new HashMap<>();
+        Map<String, T> missed = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (values.containsKey(key) || missed.containsKey(key)) {
+                continue;
+            }
+            CacheEntry cached = lookup(key, true, policy);
+            T current = cached != null ? (T) cached.getValue() : null;
+            if (current != null && usable.test(current)) {
+                refreshIfDue(key, policy, cached, () -> refresher.apply(key, current), v -> tagger.apply(key, v));
+                values.put(key, current);
+            } else {
+                missed.put(key, current);
+            }
+        }
+
+        while (!missed.isEmpty()) {
+            Map<String, CompletableFuture<Object>> claimed = new LinkedHashMap<>();
+            Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+            missed.keySet().forEach(key -> {
+                CompletableFuture<Object> load = new CompletableFuture<>();
+                CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+                if (existing != null) {
+                    joined.put(key, existing);
+                } else {
+                    claimed.put(key, load);
+                }
+            });
+            if (!claimed.isEmpty()) {
+                loadAll(claimed, missed, policy, usable, batchLoader, tagger).forEach(values::put);
+            }
+
+            // keys loaded by other callers; load again those their loads don't serve
+            Map<String, T> retry = new LinkedHashMap<>();
+            joined.forEach((key, load) -> {
+                coalescedWaiters.increment();
+                logger.debug("Joining in-flight load for key='{}'", key);
+                T value = (T) await(key, load);
+                if (value != null && usable.test(value)) {
+                    values.put(key, value);
+                } else {
+                    retry.put(key, value);
+                }
+            });
+            missed = retry;
+        }
+
+        List<T> out = new ArrayList<>(keys.size());
+        keys.forEach(key -> out.add(values.get(key)));
+        return out;
+    }
+
+    /**
+     * Serves a usable cached value: past its TTL (within the stale window) or past
+     * the refresh-ahead point, it is also reloaded in the background.
+     */
+    private <T> void refreshIfDue(String key, CachePolicy policy, CacheEntry cached, Supplier<T> reload,
+                                  Function<? super T, ? extends Collection<String>> tagger) {
+        long now = clockNanos;
+        if (!cached.isFresh(now)) {
+            staleServed.increment();
+            refreshInBackground(key, policy, reload, tagger);
+        } else if (cached.needsRefresh(now)) {
+            refreshInBackground(key, policy, reload, tagger);
+        }
+    }
+
+    /** Runs the load of a key this caller has claimed in the in-flight map. */
+    @SuppressWarnings("unchecked")
+    private <T> T load(String key, CachePolicy policy, CompletableFuture<Object> load, Predicate<? super T> usable,
+                       Function<? super T, ? extends T> loader,
+                       Function<? super T, ? extends Collection<String>> tagger) {
+        try {
+            // another caller may have finished loading between our miss and claiming the key
+            CacheEntry entry = lookup(key, false, policy);
+            T value = entry != null ? (T) entry.getValue() : null;
+            if (value == null || !usable.test(value)) {
+                value = loader.apply(value);
+                put(key, value, policy, tagger.apply(value));
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /** Runs one batch load of the keys this caller has claimed in the in-flight map. */
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, T> loadAll(Map<String, CompletableFuture<Object>> claimed, Map<String, T> missed,
+                                       CachePolicy policy, Predicate<? super T> usable,
+                                       Function<Map<String, T>, Map<String, ? extends T>> batchLoader,
+                                       BiFunction<String, ? super T, ? extends Collection<String>> tagger) {
+        Map<String, T> values = new HashMap<>();
+        try {
+            Map<String, T> toLoad = new LinkedHashMap<>();
+            claimed.keySet().forEach(key -> {
+                // another caller may have finished loading between our miss and claiming the key
+                CacheEntry entry = lookup(key, false, policy);
+                T value = entry != null ? (T) entry.getValue() : missed.get(key);
+                if (value != null && usable.test(value)) {
+                    values.put(key, value);
+                } else {
+                    toLoad.put(key, value);
+                }
+            });
+            if (!toLoad.isEmpty()) {
+                Map<String, ? extends T> loaded = batchLoader.apply(toLoad);
+                toLoad.keySet().forEach(key -> {
+                    T value = loaded.get(key);
+                    if (value == null) {
+                        throw new IllegalStateException("Batch load returned no value for cache key: " + key);
+                    }
+                    put(key, value, policy, tagger.apply(key, value));
+                    values.put(key, value);
+                });
+            }
+            claimed.forEach((key, load) -> load.complete(values.get(key)));
+            return values;
+        } catch (RuntimeException e) {
+            claimed.values().forEach(load -> load.completeExceptionally(e));
+            throw e;
+        } finally {
+            claimed.forEach(inFlight::remove);
+        }
+    }
+
+    /**
+     * Starts a reload of key on a background thread unless a load of it is already
+     * running. Waiters that miss meanwhile join this load; if it fails the previous
+     * value stays cached until it expires.
+     */
+    private <T> void refreshInBackground(String key, CachePolicy policy, Supplier<T> loader,
+                                         Function<? super T, ? extends Collection<String>> tagger) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, load) != null) {
+            return;
+        }
+        refreshes.increment();
+        logger.debug("Refreshing key='{}' in the background", key);
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    T value = loader.get();
+                    put(key, value, policy, tagger.apply(value));
+                    load.complete(value);
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    logger.warn("Background refresh of cache key '{}' failed: {}", key, e.getMessage());
+                    load.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, load);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, load);
+            load.completeExceptionally(e);
+        }
+    }
+
+    private Object await(String key, CompletableFuture<Object> load) {
+        try {
+            return load.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            loadTimeouts.increment();
+            throw new RuntimeException("Timed out after " + loadTimeoutMs + "ms waiting for load of cache key: " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("Failed to load cache key: " + key, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for load of cache key: " + key, e);
+        }
     }
 
     /**
-     * Explicitly invalidates a cache entry.
+     * Explicitly invalidates a cache entry, here, in the shared tier and on
+     * the other instances.
      */
     public void evict(String key) {
+        evictLocal(key);
+        if (shared != null) {
+            removeShared(List.of(key));
+        }
+    }
+
+    /**
+     * Evicts key together with every key that extends it with a {@code #} suffix,
+     * as query results are cached under the rendered key pattern followed by
+     * {@code #<fields>}. Matches are looked up among the heap entries of key's
+     * region and the tagged keys, which include entries moved off-heap. Returns
+     * the number of keys evicted, counting key itself.
+     */
+    public int evictWithSuffixes(String key) {
+        String prefix = key + "#";
+        Set<String> keys = new HashSet<>();
+        keys.add(key);
+        regionFor(key).asMap().keySet().stream().filter(k -> k.startsWith(prefix)).forEach(keys::add);
+        tagIndex.keys().stream().filter(k -> k.startsWith(prefix)).forEach(keys::add);
+        keys.forEach(this::evictLocal);
+        if (shared != null) {
+            removeShared(keys);
+        }
+        return keys.size();
+    }
+
+    private void removeShared(Collection<String> keys) {
+        try {
+            shared.remove(keys);
+        } catch (RuntimeException e) {
+            logger.warn("Removing {} key(s) from the shared cache failed: {}", keys.size(), e.getMessage());
+        }
+        pendingInvalidations.addAll(keys);
+    }
+
+    private void evictLocal(String key) {
         logger.debug("EVICTING key='{}'", key);
-        cache.remove(key);
+        regionFor(key).asMap().compute(key, (k, entry) -> {
+            dropOtherTiers(k);
+            return null;
+        });
+        tagIndex.untag(key);
+    }
+
+    /** Drops the off-heap and snapshot copies of key; called under the key's lock in its region. */
+    private void dropOtherTiers(String key) {
+        if (offHeap != null) {
+            offHeap.remove(key);
+        }
+        if (snapshot != null) {
+            snapshot.remove(key);
+        }
+    }
+
+    /**
+     * Evicts every entry carrying the tag (see {@link CacheTags}), in the heap,
+     * off-heap, snapshot and shared tiers alike and on the other instances.
+     * Returns the number of keys evicted.
+     */
+    public int invalidateTag(String tag) {
+        Set<String> keys = new HashSet<>(tagIndex.keysFor(tag));
+        if (shared != null) {
+            try {
+                keys.addAll(shared.removeTagged(tag));
+            } catch (RuntimeException e) {
+                logger.warn("Invalidating tag '{}' in the shared cache failed: {}", tag, e.getMessage());
+            }
+        }
+        keys.forEach(this::evictLocal);
+        if (shared != null) {
+            removeShared(keys);
+        }
+        logger.info("Invalidated {} cache entries tagged '{}'", keys.size(), tag);
+        return keys.size();
+    }
+
+    /**
+     * Evicts every entry built from the namespace, including views over it.
+     */
+    public int invalidateNamespace(String schema, String namespace) {
+        return invalidateTag(CacheTags.namespace(schema, namespace));
     }
 
     /**
-     * Clears the entire cache.
+     * Evicts every entry holding the namespace's row with the given primary key,
+     * including views over it.
+     */
+    public int invalidateEntity(String schema, String namespace, Object key) {
+        return invalidateTag(CacheTags.entity(schema, namespace, key));
+    }
+
+    /**
+     * Returns the keys currently tagged with tag.
+     */
+    public Set<String> getKeysForTag(String tag) {
+        return tagIndex.keysFor(tag);
+    }
+
+    /**
+     * Returns the number of tagged keys per tag.
+     */
+    public Map<String, Integer> getTagCounts() {
+        return tagIndex.counts();
+    }
+
+    /**
+     * Clears the entire cache, here, in the shared tier and on the other instances.
      */
     public void clear() {
+        clearLocal();
+        if (shared != null) {
+            try {
+                shared.clear();
+            } catch (RuntimeException e) {
+                logger.warn("Clearing the shared cache failed: {}", e.getMessage());
+            }
+            try {
+                shared.publish(InvalidationMessage.encodeClear(nodeId));
+                invalidationBatches.increment();
+            } catch (RuntimeException e) {
+                logger.warn("Broadcasting the cache clear failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void clearLocal() {
         logger.debug("CLEARING entire cache");
-        cache.clear();
+        regions.values().forEach(Cache::invalidateAll);
+        if (offHeap != null) {
+            offHeap.clear();
+        }
+        if (snapshot != null) {
+            snapshot.clear();
+        }
+        tagIndex.clear();
     }
 
     /**
-     * Returns all live (non-expired) entries as a Map from key -> value.
+     * Returns all fresh (within TTL) heap entries as a Map from key -> value.
+     * Entries past their TTL that are still kept for stale-while-revalidate are
+     * left out.
      */
-    @SuppressWarnings("unchecked")
     public Map<String,Object> getAllEntries() {
-        long now = System.currentTimeMillis();
-        return cache.entrySet().stream()
-                .filter(e -> e.getValue().getExpiresAt() > now)
+        long now = clockNanos;
+        return regions.values().stream()
+                .flatMap(r -> r.asMap().entrySet().stream())
+                .filter(e -> e.getValue().isFresh(now))
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
                         e -> e.getValue().getValue()
@@ -101,9 +1125,97 @@ public class CacheService {
     }
 
     /**
-     * Returns the set of all cache keys (may include expired; cleanup occurs on next access).
+     * Returns the set of all live cache keys.
      */
     public Set<String> getAllKeys() {
-        return new HashSet<>(cache.keySet());
+        Set<String> keys = new HashSet<>();
+        regions.values().forEach(r -> keys.addAll(r.asMap().keySet()));
+        return keys;
+    }
+
+    /**
+     * Returns hit/miss/eviction counts and weight per region, plus the off-heap tier if enabled.
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> out = new TreeMap<>();
+        regions.forEach((name, region) -> {
+            CacheStats stats = region.stats();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("entries", region.estimatedSize());
+            m.put("weightBytes", weightedSize(region));
+            m.put("maxWeightBytes", region.policy().eviction().map(e -> e.getMaximum()).orElse(-1L));
+            m.put("hitCount", stats.hitCount());
+            m.put("missCount", stats.missCount());
+            m.put("hitRatio", stats.hitRate());
+            m.put("evictionCount", stats.evictionCount());
+            m.put("evictionWeightBytes", stats.evictionWeight());
+            out.put(name, m);
+        });
+        if (offHeap != null) {
+            out.put("off-heap", offHeap.getStats());
+        }
+        if (shared != null) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("hitCount", (long) sharedHits.count());
+            m.put("missCount", (long) sharedMisses.count());
+            m.put("invalidationsSent", (long) invalidationsSent.count());
+            m.put("invalidationBatches", (long) invalidationBatches.count());
+            m.put("invalidationsReceived", (long) invalidationsReceived.count());
+            out.put("shared", m);
+        }
+        return out;
+    }
+
+    private Cache<String, CacheEntry> regionFor(String key) {
+        int sep = key.indexOf("::");
+        String name = sep > 0 ? key.substring(0, sep) : DEFAULT_REGION;
+        if (!regionLimits.containsKey(name)) {
+            name = DEFAULT_REGION;
+        }
+        Cache<String, CacheEntry> region = regions.get(name);
+        return region != null ? region : regions.computeIfAbsent(name, this::newRegion);
+    }
+
+    private Cache<String, CacheEntry> newRegion(String name) {
+        long maxWeight = regionLimits.getOrDefault(name, defaultMaxWeight);
+        Counter expired = Counter.builder("cache.expired")
+                .description("Entries removed because their TTL passed")
+                .tags("cache", "query", "region", name)
+                .register(meterRegistry);
+        Cache<String, CacheEntry> region = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String k, CacheEntry e) -> e.getWeight())
+                .expireAfter(new EntryExpiry())
+                .ticker(() -> clockNanos)
+                .scheduler(Scheduler.forScheduledExecutorService(expiryThread))
+                // runs synchronously while the key is locked, so no newer put or invalidation
+                // of the key can come in between the eviction and the demotion
+                .evictionListener((String k, CacheEntry e, RemovalCause cause) -> {
+                    // a demoted entry keeps its tags off-heap
+                    if (!(cause == RemovalCause.SIZE && demote(k, e))) {
+                        tagIndex.untag(k, e.tags);
+                    }
+                })
+                .removalListener((String k, CacheEntry e, RemovalCause cause) -> {
+                    if (cause == RemovalCause.EXPIRED) {
+                        expired.increment();
+                    }
+                })
+                .executor(refreshExecutor)
+                .recordStats()
+                .build();
+        // cache.gets, cache.evictions, cache.eviction.weight, ... tagged cache=query,region=<name>
+        CaffeineCacheMetrics.monitor(meterRegistry, region, "query", "region", name);
+        Gauge.builder("cache.weight", region, CacheService::weightedSize)
+                .description("Estimated bytes held by the cache region")
+                .tags("cache", "query", "region", name)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        logger.info("Created cache region '{}' with max weight {} bytes", name, maxWeight);
+        return region;
+    }
+
+    private static long weightedSize(Cache<String, CacheEntry> region) {
+        return region.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
     }
 }
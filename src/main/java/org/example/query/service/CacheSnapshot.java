@@ -0,0 +1,199 @@
+package org.example.query.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache snapshot file: a header, then one record per entry holding its key,
+ * wall-clock expiry and encoded payload. Snapshots are written through a
+ * memory mapping of a temporary file that then replaces the previous snapshot.
+ * An opened snapshot maps the file and only indexes the records; a payload is
+ * copied out of the mapping when its key is {@link #take taken}.
+ */
+final class CacheSnapshot {
+    private static final int MAGIC = 0x51435332; // "QCS2"
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    static final class Record {
+        private final String key;
+        private final long expiresAtMillis;
+        private final byte[] payload;
+
+        Record(String key, long expiresAtMillis, byte[] payload) {
+            this.key = key;
+            this.expiresAtMillis = expiresAtMillis;
+            this.payload = payload;
+        }
+
+        String getKey() {
+            return key;
+        }
+    }
+
+    private static final class Slot {
+        private final int offset;
+        private final int length;
+        private final long expiresAtMillis;
+
+        Slot(int offset, int length, long expiresAtMillis) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final MappedByteBuffer mapped;
+    private final Map<String, Slot> index;
+    private final int skipped;
+
+    private CacheSnapshot(MappedByteBuffer mapped, Map<String, Slot> index, int skipped) {
+        this.mapped = mapped;
+        this.index = index;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Writes the records to file, replacing any previous snapshot atomically.
+     * Returns the number of records written; records past the 2 GB a single
+     * mapping can hold are left out.
+     */
+    static int write(Path file, Collection<Record> records) throws IOException {
+        long size = HEADER_BYTES;
+        List<Record> included = new ArrayList<>(records.size());
+        for (Record r : records) {
+            long recordSize = Integer.BYTES + r.key.getBytes(StandardCharsets.UTF_8).length
+                    + Long.BYTES + Integer.BYTES + r.payload.length;
+            if (size + recordSize > Integer.MAX_VALUE) {
+                break;
+            }
+            size += recordSize;
+            included.add(r);
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC);
+            out.putLong(System.currentTimeMillis());
+            out.putInt(included.size());
+            for (Record r : included) {
+                byte[] key = r.key.getBytes(StandardCharsets.UTF_8);
+                out.putInt(key.length);
+                out.put(key);
+                out.putLong(r.expiresAtMillis);
+                out.putInt(r.payload.length);
+                out.put(r.payload);
+            }
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return included.size();
+    }
+
+    /**
+     * Maps a snapshot and indexes the records not expired at nowMillis, or
+     * returns null if there is no snapshot file.
+     */
+    static CacheSnapshot open(Path file, long nowMillis) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot: " + file);
+            }
+            in.getLong();
+            int count = in.getInt();
+            Map<String, Slot> index = new HashMap<>(count * 2);
+            int skipped = 0;
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[in.getInt()];
+                in.get(key);
+                long expiresAtMillis = in.getLong();
+                int length = in.getInt();
+                if (expiresAtMillis > nowMillis) {
+                    index.put(new String(key, StandardCharsets.UTF_8), new Slot(in.position(), length, expiresAtMillis));
+                } else {
+                    skipped++;
+                }
+                in.position(in.position() + length);
+            }
+            return new CacheSnapshot(in, index, skipped);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated cache snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Removes and returns the payload stored under key, or null if there is none.
+     */
+    synchronized byte[] take(String key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] payload = new byte[slot.length];
+        mapped.get(slot.offset, payload);
+        return payload;
+    }
+
+    /**
+     * Passes a read-only view of each payload not yet taken to action.
+     */
+    synchronized void forEachPayload(BiConsumer<String, ByteBuffer> action) {
+        index.forEach((key, slot) -> action.accept(key, mapped.slice(slot.offset, slot.length)));
+    }
+
+    synchronized void remove(String key) {
+        index.remove(key);
+    }
+
+    synchronized void clear() {
+        index.clear();
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /** Records skipped on open because they had already expired. */
+    int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Copies out the records not yet taken and not expired at nowMillis,
+     * so that a new snapshot can carry them over.
+     */
+    synchronized List<Record> remaining(long nowMillis) {
+        List<Record> out = new ArrayList<>(index.size());
+        index.forEach((key, slot) -> {
+            if (slot.expiresAtMillis > nowMillis) {
+                byte[] payload = new byte[slot.length];
+                mapped.get(slot.offset, payload);
+                out.add(new Record(key, slot.expiresAtMillis, payload));
+            }
+        });
+        return out;
+    }
+}
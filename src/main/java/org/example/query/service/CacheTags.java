@@ -0,0 +1,106 @@
+package org.example.query.service;
+
+import org.example.query.model.RowSet;
+import org.example.schema.model.DataSource;
+import org.example.schema.model.Namespace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Names of the tags cached results are indexed under, for
+ * {@link CacheService#invalidateTag tag invalidation}:
+ * <ul>
+ *   <li>{@code schema:<schema>}</li>
+ *   <li>{@code namespace:<schema>.<namespace>}</li>
+ *   <li>{@code entity:<schema>.<namespace>:<primary key>} (composite keys joined with ",")</li>
+ * </ul>
+ * A view result carries the tags of the view and of every source it reads,
+ * so changing a customer invalidates the views built from it too.
+ */
+public final class CacheTags {
+    private CacheTags() {
+    }
+
+    public static String schema(String schema) {
+        return "schema:" + schema;
+    }
+
+    public static String namespace(String schema, String namespace) {
+        return "namespace:" + schema + "." + namespace;
+    }
+
+    public static String entity(String schema, String namespace, Object key) {
+        return "entity:" + schema + "." + namespace + ":" + key;
+    }
+
+    /**
+     * Tags of the result of a plan for the given arguments: its schema and
+     * namespace, the primary keys among the arguments and the rows, and for
+     * views the same for the base and each joined source at the value of the
+     * view's global key argument.
+     */
+    public static Set<String> of(QueryPlan plan, Map<String, Object> args, List<Map<String, Object>> rows) {
+        Map<String, Object> arguments = args != null ? args : Collections.emptyMap();
+        Set<String> tags = new LinkedHashSet<>();
+        String schema = plan.getSchemaName();
+        Namespace ns = plan.getNamespace();
+        tags.add(schema(schema));
+        tags.add(namespace(schema, ns.getNamespace()));
+
+        List<String> pk = ns.getPrimaryKey() != null ? ns.getPrimaryKey() : Collections.emptyList();
+        if (!pk.isEmpty()) {
+            String fromArgs = compositeKey(pk, arguments);
+            if (fromArgs != null) {
+                tags.add(entity(schema, ns.getNamespace(), fromArgs));
+            }
+            if (rows instanceof RowSet rs) {
+                for (Map<String, Object> row : rs) {
+                    String fromRow = compositeKey(pk, row);
+                    if (fromRow != null) {
+                        tags.add(entity(schema, ns.getNamespace(), fromRow));
+                    }
+                }
+            }
+        }
+
+        if (plan.isView()) {
+            // every source is read at the value of the view's global key argument
+            DataSource source = plan.getSource();
+            Object key = source.getGlobalKey() != null ? arguments.get(source.getGlobalKey()) : null;
+            if (source.getBase() != null) {
+                addSource(tags, source.getBase().getSchema(), source.getBase().getNamespace(), key);
+            }
+            if (source.getJoins() != null) {
+                for (DataSource.JoinDefinition jd : source.getJoins()) {
+                    addSource(tags, jd.getSchema(), jd.getNamespace(), key);
+                }
+            }
+        }
+        return tags;
+    }
+
+    private static void addSource(Set<String> tags, String schema, String namespace, Object key) {
+        tags.add(schema(schema));
+        tags.add(namespace(schema, namespace));
+        if (key != null) {
+            tags.add(entity(schema, namespace, key));
+        }
+    }
+
+    private static String compositeKey(List<String> pk, Map<String, Object> values) {
+        List<String> parts = new ArrayList<>(pk.size());
+        for (String column : pk) {
+            Object v = values.get(column);
+            if (v == null) {
+                return null;
+            }
+            parts.add(String.valueOf(v));
+        }
+        return String.join(",", parts);
+    }
+}
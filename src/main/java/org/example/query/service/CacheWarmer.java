@@ -0,0 +1,154 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.query.model.QueryRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the cache at startup, before the application reports ready, by running
+ * the requests listed in cache.warmup.keys-file and those {@link WarmupRecorder
+ * recorded} by the previous run through the normal query path. Loads run with
+ * bounded concurrency and at most cache.warmup.rate-per-second per data source,
+ * and stop at the deadline.
+ *
+ * As a health indicator it reports OUT_OF_SERVICE until warming has finished
+ * or the deadline has passed, so it can gate the readiness probe.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner, HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final QueryProcessor queryProcessor;
+    private final WarmupRecorder recorder;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cache.warmup.keys-file:}")
+    private String keysFile;
+
+    @Value("${cache.warmup.concurrency:4}")
+    private int concurrency;
+
+    @Value("${cache.warmup.rate-per-second:0}")
+    private double ratePerSecond;
+
+    @Value("${cache.warmup.deadline-seconds:60}")
+    private long deadlineSeconds;
+
+    private volatile String state = "pending";
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    // next free load slot per data source, in System.nanoTime() terms
+    private final Map<String, AtomicLong> nextPermit = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CacheWarmer(QueryProcessor queryProcessor, WarmupRecorder recorder, ObjectMapper objectMapper) {
+        this.queryProcessor = queryProcessor;
+        this.recorder = recorder;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        List<QueryRequest> requests = new ArrayList<>();
+        if (!keysFile.isBlank()) {
+            requests.addAll(WarmupRecorder.readRequests(objectMapper, Paths.get(keysFile)));
+        }
+        requests.addAll(recorder.load());
+        total.set(requests.size());
+        if (requests.isEmpty()) {
+            state = "done";
+            return;
+        }
+
+        state = "warming";
+        logger.info("Warming the cache with {} request(s), concurrency={} deadline={}s",
+                requests.size(), concurrency, deadlineSeconds);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(deadlineSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofVirtual().name("cache-warmup-", 0).factory());
+        for (QueryRequest req : requests) {
+            executor.execute(() -> warm(req, deadline));
+        }
+        executor.shutdown();
+        boolean finished = executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!finished) {
+            executor.shutdownNow();
+        }
+        state = finished ? "done" : "deadline passed";
+        logger.info("Cache warm-up {} after {} ms: loaded={} skipped={} failed={} of {}", state,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loaded.get(), skipped.get(), failed.get(), total.get());
+    }
+
+    private void warm(QueryRequest req, long deadline) {
+        try {
+            if (!awaitPermit(queryProcessor.dataSourceOf(req), deadline)) {
+                return;
+            }
+            if (queryProcessor.warm(req)) {
+                loaded.incrementAndGet();
+            } else {
+                skipped.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.debug("Cache warm-up of {}.{} {} failed: {}", req.getSchema(), req.getNamespace(), req.getArguments(), e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the data source's next load slot; false if it lies past the
+     * deadline or the wait is interrupted.
+     */
+    private boolean awaitPermit(String dataSource, long deadline) {
+        long now = System.nanoTime();
+        if (ratePerSecond <= 0) {
+            return now < deadline;
+        }
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        AtomicLong next = nextPermit.computeIfAbsent(String.valueOf(dataSource), k -> new AtomicLong(now));
+        long slot = Math.max(next.getAndAccumulate(now, (p, n) -> Math.max(p, n) + interval), now);
+        if (slot >= deadline) {
+            return false;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = "warming".equals(state) || "pending".equals(state) ? Health.outOfService() : Health.up();
+        return builder.withDetail("state", state)
+                .withDetail("total", total.get())
+                .withDetail("loaded", loaded.get())
+                .withDetail("skipped", skipped.get())
+                .withDetail("failed", failed.get())
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.query.service;
+
+import org.example.query.model.RowSet;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rough retained-heap estimates for cached values, used as cache weights.
+ * Sizes assume a 64-bit JVM with compressed oops; they only need to be
+ * proportional, not exact.
+ */
+final class CacheWeights {
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAP_ENTRY = 32;
+
+    private CacheWeights() {
+    }
+
+    /**
+     * Estimated bytes held by a cache entry with the given key and value.
+     */
+    static int of(String key, Object value) {
+        long bytes = OBJECT_HEADER * 2 + estimate(key) + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    static long estimate(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof String s) {
+            // String + byte[] (Latin-1 or UTF-16)
+            return OBJECT_HEADER + 8 + OBJECT_HEADER + (long) s.length() * (s.chars().allMatch(c -> c < 256) ? 1 : 2);
+        }
+        if (value instanceof Integer || value instanceof Float || value instanceof Short
+                || value instanceof Byte || value instanceof Character) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return OBJECT_HEADER + 8;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return OBJECT_HEADER * 3 + 16;
+        }
+        if (value instanceof RowSet rows) {
+            // the header is shared, so only count it once
+            long bytes = OBJECT_HEADER * 2;
+            if (rows.getRetainedJsonLength() > 0) {
+                bytes += OBJECT_HEADER + rows.getRetainedJsonLength();
+            }
+            RowSet.Header header = rows.getHeader();
+            for (int c = 0; c < header.size(); c++) {
+                bytes += estimate(header.name(c)) + MAP_ENTRY * 2;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] v = rows.values(i);
+                bytes += OBJECT_HEADER + (long) REFERENCE * (v.length + 1);
+                for (Object o : v) {
+                    bytes += estimate(o);
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = OBJECT_HEADER * 3 + (long) REFERENCE * map.size() * 2;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                bytes += MAP_ENTRY + estimate(e.getKey()) + estimate(e.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> c) {
+            long bytes = OBJECT_HEADER * 2 + (long) REFERENCE * c.size();
+            for (Object o : c) {
+                bytes += estimate(o);
+            }
+            return bytes;
+        }
+        // dates, arrays and anything else: a small fixed guess
+        return OBJECT_HEADER * 2;
+    }
+}
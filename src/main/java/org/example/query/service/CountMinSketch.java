@@ -0,0 +1,62 @@
+package org.example.query.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed-size frequency estimator: {@code DEPTH} rows of counters, each key
+ * incrementing one counter per row chosen by a differently seeded hash. The
+ * estimate is the smallest of those counters, so it can overcount (when keys
+ * collide in every row) but never undercounts. {@link #halve} ages all counts
+ * so that past traffic fades.
+ */
+final class CountMinSketch {
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    /** width is rounded up to a power of two. */
+    CountMinSketch(int width) {
+        int w = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.mask = w - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * w);
+    }
+
+    /** Counts one occurrence of key and returns its new estimated count. */
+    int add(String key) {
+        int h = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(h, row)));
+        }
+        return min;
+    }
+
+    int estimate(String key) {
+        int h = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(h, row)));
+        }
+        return min;
+    }
+
+    /** Halves every counter. Concurrent adds may be lost, which only lowers estimates. */
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    int width() {
+        return mask + 1;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash ^ (hash >>> 16)) * SEEDS[row];
+        return row * (mask + 1) + (int) ((h >>> 32) & mask);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.query.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-namespace request frequencies in fixed memory: a {@link CountMinSketch}
+ * estimates how often each key was requested, and a min-heap keeps the top
+ * cache.hot-keys.top-k keys by estimate. Counts are halved every
+ * sample-factor &times; sketch-width requests of a namespace, so the hot set
+ * follows current traffic.
+ *
+ * Keys whose estimate reaches cache.hot-keys.threshold are hot: {@link QueryProcessor}
+ * caches them for {@link #ttlSeconds} even when their namespace is not cacheable.
+ */
+@Component
+public class HotKeyTracker {
+
+    @Value("${cache.hot-keys.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.hot-keys.sketch-width:4096}")
+    private int sketchWidth;
+
+    @Value("${cache.hot-keys.sample-factor:10}")
+    private int sampleFactor;
+
+    @Value("${cache.hot-keys.top-k:20}")
+    private int topK;
+
+    @Value("${cache.hot-keys.threshold:50}")
+    private int threshold;
+
+    @Value("${cache.hot-keys.ttl-seconds:2}")
+    private long ttlSeconds;
+
+    @Value("${cache.hot-keys.max-ttl-seconds:30}")
+    private long maxTtlSeconds;
+
+    private final Map<String, Frequencies> byNamespace = new ConcurrentHashMap<>();
+
+    private static final class HotKey {
+        private final String key;
+        private int count;
+
+        HotKey(String key, int count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    private final class Frequencies {
+        private final CountMinSketch sketch = new CountMinSketch(sketchWidth);
+        private final AtomicInteger sinceAging = new AtomicInteger();
+        private final PriorityQueue<HotKey> heap = new PriorityQueue<>(Comparator.comparingInt((HotKey h) -> h.count));
+        private final Map<String, HotKey> top = new HashMap<>();
+
+        int add(String key) {
+            if (sinceAging.incrementAndGet() >= sketch.width() * sampleFactor) {
+                sinceAging.set(0);
+                age();
+            }
+            int count = sketch.add(key);
+            synchronized (this) {
+                HotKey hot = top.get(key);
+                if (hot != null) {
+                    heap.remove(hot);
+                    hot.count = count;
+                    heap.add(hot);
+                } else if (top.size() < topK || (topK > 0 && count > heap.peek().count)) {
+                    if (top.size() >= topK) {
+                        top.remove(heap.poll().key);
+                    }
+                    hot = new HotKey(key, count);
+                    top.put(key, hot);
+                    heap.add(hot);
+                }
+            }
+            return count;
+        }
+
+        private synchronized void age() {
+            sketch.halve();
+            List<HotKey> keys = new ArrayList<>(heap);
+            heap.clear();
+            for (HotKey hot : keys) {
+                hot.count >>>= 1;
+                heap.add(hot);
+            }
+        }
+
+        synchronized Map<String, Integer> topKeys() {
+            List<HotKey> keys = new ArrayList<>(heap);
+            keys.sort(Comparator.comparingInt((HotKey h) -> h.count).reversed());
+            Map<String, Integer> out = new LinkedHashMap<>();
+            for (HotKey hot : keys) {
+                out.put(hot.key, hot.count);
+            }
+            return out;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts one request for key in the namespace and returns the key's
+     * estimated recent request count.
+     */
+    public int record(String namespace, String key) {
+        return byNamespace.computeIfAbsent(namespace, n -> new Frequencies()).add(key);
+    }
+
+    /**
+     * How long to cache a key with the given count: 0 below the threshold,
+     * then ttl-seconds growing in proportion to the count, up to max-ttl-seconds.
+     */
+    public long ttlSeconds(int count) {
+        if (count < threshold) {
+            return 0;
+        }
+        return Math.min(maxTtlSeconds, ttlSeconds * count / threshold);
+    }
+
+    /** The top keys of each namespace with their estimated counts, hottest first. */
+    public Map<String, Map<String, Integer>> getHotKeys() {
+        Map<String, Map<String, Integer>> out = new TreeMap<>();
+        byNamespace.forEach((ns, f) -> out.put(ns, f.topKeys()));
+        return out;
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.query.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Wire format of a batch of invalidated cache keys sent over
+ * {@link SharedCache#publish}: a version byte, the sending node's id, a byte
+ * that is 1 if the whole cache was cleared (the batch is then empty), then the
+ * keys in sorted order, each written as the length of the prefix it shares with
+ * the previous key plus the remaining bytes (front coding; cache keys share long
+ * prefixes such as {@code customers::CustomerDBSchema:}). Lengths are varints.
+ */
+final class InvalidationMessage {
+    private static final byte VERSION = 2;
+
+    private final long origin;
+    private final boolean clear;
+    private final List<String> keys;
+
+    InvalidationMessage(long origin, boolean clear, List<String> keys) {
+        this.origin = origin;
+        this.clear = clear;
+        this.keys = keys;
+    }
+
+    long getOrigin() {
+        return origin;
+    }
+
+    /** true if the sender cleared its whole cache. */
+    boolean isClear() {
+        return clear;
+    }
+
+    List<String> getKeys() {
+        return keys;
+    }
+
+    static byte[] encode(long origin, Collection<String> keys) {
+        return encode(origin, false, keys);
+    }
+
+    static byte[] encodeClear(long origin) {
+        return encode(origin, true, List.of());
+    }
+
+    private static byte[] encode(long origin, boolean clear, Collection<String> keys) {
+        String[] sorted = keys.toArray(new String[0]);
+        Arrays.sort(sorted);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(17 + sorted.length * 8);
+        out.write(VERSION);
+        for (int i = 7; i >= 0; i--) {
+            out.write((int) (origin >>> (i * 8)));
+        }
+        out.write(clear ? 1 : 0);
+        writeVarint(out, sorted.length);
+        byte[] previous = new byte[0];
+        for (String key : sorted) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            int shared = Arrays.mismatch(previous, bytes);
+            if (shared < 0) {
+                shared = bytes.length; // duplicate key
+            }
+            shared = Math.min(shared, previous.length);
+            writeVarint(out, shared);
+            writeVarint(out, bytes.length - shared);
+            out.write(bytes, shared, bytes.length - shared);
+            previous = bytes;
+        }
+        return out.toByteArray();
+    }
+
+    static InvalidationMessage decode(byte[] message) {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported invalidation message version " + version);
+        }
+        long origin = in.getLong();
+        boolean clear = in.get() != 0;
+        int count = readVarint(in);
+        List<String> keys = new ArrayList<>(count);
+        byte[] previous = new byte[0];
+        for (int i = 0; i < count; i++) {
+            int shared = readVarint(in);
+            int rest = readVarint(in);
+            byte[] bytes = Arrays.copyOf(previous, shared + rest);
+            in.get(bytes, shared, rest);
+            keys.add(new String(bytes, StandardCharsets.UTF_8));
+            previous = bytes;
+        }
+        return new InvalidationMessage(origin, clear, keys);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
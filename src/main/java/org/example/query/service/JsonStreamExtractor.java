@@ -0,0 +1,349 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.schema.model.Field;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the rows of an API namespace from a JSON token stream, without
+ * building the document. The namespace path and the field paths are compiled
+ * into a trie of path segments that is walked along with the parser: subtrees
+ * no path leads into are skipped, and only the values at field paths are read.
+ * Each node's row is emitted as soon as the node has been parsed.
+ *
+ * Follows {@link ApiClient}'s tree-based extraction: field paths under the
+ * namespace path are read from each node, other field paths once from the
+ * document, and a field without a value falls back to the node's member of
+ * the same name. Only paths made of names, indexes and {@code *} are
+ * supported; {@link #compile} returns null for anything else (filters, deep
+ * scans, slices, unions), and for field paths that select several values.
+ */
+final class JsonStreamExtractor {
+    private static final Object WILDCARD = new Object();
+
+    /** Paths sharing a prefix share trie nodes; markers say what to do at a node. */
+    private static final class Trie {
+        private final Map<String, Trie> names = new HashMap<>();
+        private final Map<Integer, Trie> indexes = new HashMap<>();
+        private Trie wildcard;
+        // the namespace path ends here: the value holds the nodes
+        private boolean nodes;
+        // columns whose value is here, and columns whose fallback value is here
+        private final List<Integer> columns = new ArrayList<>();
+        private final List<Integer> fallbacks = new ArrayList<>();
+
+        Trie at(List<Object> segments) {
+            Trie t = this;
+            for (Object segment : segments) {
+                if (segment == WILDCARD) {
+                    t = t.wildcard != null ? t.wildcard : (t.wildcard = new Trie());
+                } else if (segment instanceof Integer i) {
+                    t = t.indexes.computeIfAbsent(i, k -> new Trie());
+                } else {
+                    t = t.names.computeIfAbsent((String) segment, k -> new Trie());
+                }
+            }
+            return t;
+        }
+
+        Trie child(String name) {
+            Trie t = names.get(name);
+            return t != null ? t : wildcard;
+        }
+
+        Trie child(int index) {
+            Trie t = indexes.get(index);
+            return t != null ? t : wildcard;
+        }
+
+        private boolean hasChildren() {
+            return wildcard != null || !names.isEmpty() || !indexes.isEmpty();
+        }
+
+        /** Whether every path can be matched in one pass without reading a value twice. */
+        boolean isStreamable() {
+            if ((nodes || !columns.isEmpty() || !fallbacks.isEmpty()) && hasChildren()) {
+                return false;
+            }
+            if (wildcard != null && (!names.isEmpty() || !indexes.isEmpty())) {
+                return false;
+            }
+            for (Trie t : names.values()) {
+                if (!t.isStreamable()) {
+                    return false;
+                }
+            }
+            for (Trie t : indexes.values()) {
+                if (!t.isStreamable()) {
+                    return false;
+                }
+            }
+            return wildcard == null || wildcard.isStreamable();
+        }
+    }
+
+    private final Trie document = new Trie();
+    private final Trie node = new Trie();
+    private final int width;
+    // each value matched by a namespace path containing * is a node, rather than each element of an array
+    private final boolean eachMatchIsNode;
+    private final int[] documentColumns;
+
+    private JsonStreamExtractor(int width, boolean eachMatchIsNode, int[] documentColumns) {
+        this.width = width;
+        this.eachMatchIsNode = eachMatchIsNode;
+        this.documentColumns = documentColumns;
+    }
+
+    /**
+     * Compiles the extraction of the given fields, in order, from the nodes at
+     * namespaceJsonPath (or the whole document if it is empty); null if a path
+     * can't be streamed.
+     */
+    static JsonStreamExtractor compile(String namespaceJsonPath, List<Field> fields) {
+        boolean hasNamespacePath = namespaceJsonPath != null && !namespaceJsonPath.trim().isEmpty();
+        List<Object> namespaceSegments = hasNamespacePath ? parse(namespaceJsonPath) : List.of();
+        if (namespaceSegments == null) {
+            return null;
+        }
+
+        List<Integer> documentColumns = new ArrayList<>();
+        List<List<Object>> documentPaths = new ArrayList<>();
+        List<List<Object>> nodePaths = new ArrayList<>();
+        for (int c = 0; c < fields.size(); c++) {
+            Field f = fields.get(c);
+            String fieldPath = null;
+            if (f.getJsonPath() != null && !f.getJsonPath().trim().isEmpty()) {
+                fieldPath = f.getJsonPath();
+            } else if (hasNamespacePath) {
+                fieldPath = namespaceJsonPath + "." + f.getName();
+            }
+            List<Object> nodePath = null;
+            List<Object> documentPath = null;
+            if (fieldPath != null) {
+                String relative = hasNamespacePath ? ApiClient.relativePath(namespaceJsonPath, fieldPath) : null;
+                List<Object> segments = parse(relative != null ? relative : fieldPath);
+                if (segments == null || segments.contains(WILDCARD)) {
+                    return null;
+                }
+                if (relative != null) {
+                    nodePath = segments;
+                } else {
+                    documentPath = segments;
+                    documentColumns.add(c);
+                }
+            }
+            nodePaths.add(nodePath);
+            documentPaths.add(documentPath);
+        }
+
+        JsonStreamExtractor extractor = new JsonStreamExtractor(fields.size(), namespaceSegments.contains(WILDCARD),
+                documentColumns.stream().mapToInt(Integer::intValue).toArray());
+        extractor.document.at(namespaceSegments).nodes = true;
+        for (int c = 0; c < fields.size(); c++) {
+            if (documentPaths.get(c) != null) {
+                extractor.document.at(documentPaths.get(c)).columns.add(c);
+            }
+            if (nodePaths.get(c) != null) {
+                extractor.node.at(nodePaths.get(c)).columns.add(c);
+            }
+            extractor.node.at(List.of(fields.get(c).getName())).fallbacks.add(c);
+        }
+        return extractor.document.isStreamable() && extractor.node.isStreamable() ? extractor : null;
+    }
+
+    /**
+     * Reads the whole document from the parser and hands each row, parallel to
+     * the fields, to {@code rows}. Rows are emitted as their node is parsed,
+     * except that rows parsed before every document-level field has been seen
+     * are held back until it has, or until the end of the document.
+     */
+    void extract(JsonParser parser, Consumer<Object[]> rows) throws IOException {
+        if (parser.nextToken() == null) {
+            return;
+        }
+        Run run = new Run(rows);
+        run.scan(parser, document, null, null);
+        run.flush();
+    }
+
+    /** State of one extraction. */
+    private final class Run {
+        private final Consumer<Object[]> rows;
+        private final Object[] documentValues = new Object[width];
+        private final boolean[] documentSeen = new boolean[width];
+        private int documentPending = documentColumns.length;
+        private final List<Object[]> heldBack = new ArrayList<>();
+
+        Run(Consumer<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * Matches the value at the parser's current token against the trie,
+         * recording values into {@code values} and {@code fallbacks} (the
+         * document's values when both are null).
+         */
+        void scan(JsonParser p, Trie t, Object[] values, Object[] fallbacks) throws IOException {
+            if (t.nodes) {
+                readNodes(p);
+                return;
+            }
+            if (!t.columns.isEmpty() || !t.fallbacks.isEmpty()) {
+                Object value = readValue(p);
+                for (int c : t.columns) {
+                    if (values != null) {
+                        values[c] = value;
+                    } else {
+                        documentValues[c] = value;
+                        if (!documentSeen[c]) {
+                            documentSeen[c] = true;
+                            documentPending--;
+                        }
+                    }
+                }
+                for (int c : t.fallbacks) {
+                    fallbacks[c] = value;
+                }
+                return;
+            }
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    Trie child = t.child(p.currentName());
+                    p.nextToken();
+                    if (child != null) {
+                        scan(p, child, values, fallbacks);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                int i = 0;
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    Trie child = t.child(i++);
+                    if (child != null) {
+                        scan(p, child, values, fallbacks);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            }
+        }
+
+        private void readNodes(JsonParser p) throws IOException {
+            if (!eachMatchIsNode && p.currentToken() == JsonToken.START_ARRAY) {
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    readNode(p);
+                }
+            } else {
+                readNode(p);
+            }
+        }
+
+        private void readNode(JsonParser p) throws IOException {
+            Object[] row = new Object[width];
+            Object[] fallbacks = new Object[width];
+            scan(p, node, row, fallbacks);
+            for (int c = 0; c < width; c++) {
+                if (row[c] == null) {
+                    row[c] = fallbacks[c];
+                }
+            }
+            if (documentPending == 0) {
+                emit(row);
+            } else {
+                heldBack.add(row);
+            }
+        }
+
+        private void emit(Object[] row) {
+            for (int c : documentColumns) {
+                if (documentValues[c] != null) {
+                    row[c] = documentValues[c];
+                }
+            }
+            rows.accept(row);
+        }
+
+        void flush() {
+            heldBack.forEach(this::emit);
+            heldBack.clear();
+        }
+    }
+
+    private static Object readValue(JsonParser p) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_STRING:
+                return p.getText();
+            case VALUE_NUMBER_INT:
+                return p.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return p.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case START_OBJECT:
+            case START_ARRAY:
+                return p.readValueAs(Object.class);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Splits a JsonPath into names, indexes and {@link #WILDCARD}s, e.g.
+     * {@code $.data['items'][0].*}; null if it uses anything else.
+     */
+    static List<Object> parse(String path) {
+        String s = path.trim();
+        if (!s.startsWith("$")) {
+            return null;
+        }
+        List<Object> segments = new ArrayList<>();
+        int i = 1;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                while (i < s.length() && s.charAt(i) != '.' && s.charAt(i) != '[') {
+                    i++;
+                }
+                String name = s.substring(start, i);
+                if (name.isEmpty()) {
+                    return null; // ".." deep scan
+                }
+                segments.add("*".equals(name) ? WILDCARD : name);
+            } else if (c == '[') {
+                int end = s.indexOf(']', i);
+                if (end < 0) {
+                    return null;
+                }
+                String inner = s.substring(i + 1, end).trim();
+                i = end + 1;
+                if ("*".equals(inner)) {
+                    segments.add(WILDCARD);
+                } else if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)
+                        && inner.indexOf(inner.charAt(0), 1) == inner.length() - 1) {
+                    segments.add(inner.substring(1, inner.length() - 1));
+                } else if (!inner.isEmpty() && inner.chars().allMatch(Character::isDigit)) {
+                    segments.add(Integer.parseInt(inner));
+                } else {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.query.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link SharedCache}: a concurrent map with per-value expiry and a
+ * tag index, and a broadcast channel that hands each message synchronously to
+ * every subscriber in this JVM. Enabled with {@code cache.shared.type=loopback};
+ * useful for exercising the shared tier and invalidation path without external
+ * services.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.shared.type", havingValue = "loopback")
+public class LoopbackSharedCache implements SharedCache {
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackSharedCache.class);
+
+    private static class Stored {
+        private final byte[] value;
+        private final long expiresAtMillis;
+
+        Stored(byte[] value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final ConcurrentMap<String, Stored> values = new ConcurrentHashMap<>();
+    private final TagIndex tags = new TagIndex();
+    private final List<Consumer<byte[]>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public byte[] get(String key) {
+        Stored stored = values.get(key);
+        if (stored == null) {
+            return null;
+        }
+        if (stored.expiresAtMillis <= System.currentTimeMillis()) {
+            if (values.remove(key, stored)) {
+                tags.untag(key);
+            }
+            return null;
+        }
+        return stored.value;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis, Set<String> tagSet) {
+        values.put(key, new Stored(value, System.currentTimeMillis() + ttlMillis));
+        tags.tag(key, tagSet);
+    }
+
+    @Override
+    public void remove(Collection<String> keys) {
+        for (String key : keys) {
+            values.remove(key);
+            tags.untag(key);
+        }
+    }
+
+    @Override
+    public Set<String> removeTagged(String tag) {
+        Set<String> keys = tags.keysFor(tag);
+        remove(keys);
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+        tags.clear();
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        for (Consumer<byte[]> subscriber : subscribers) {
+            try {
+                subscriber.accept(message);
+            } catch (RuntimeException e) {
+                logger.warn("Invalidation subscriber failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> listener) {
+        subscribers.add(listener);
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.query.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Second cache tier holding encoded entries outside the Java heap, in one
+ * direct buffer used as a ring: entries are appended at the write position,
+ * and when it wraps around the oldest entries in its way are evicted (FIFO).
+ * A hit removes the entry, since the caller promotes it back to the heap tier.
+ * Keys overwritten by newer entries are reported to an eviction callback.
+ */
+final class OffHeapTier {
+    private static final class Slot {
+        private final String key;
+        // logical start (total bytes written before it) and physical offset in the arena
+        private final long start;
+        private final int offset;
+        private final int length;
+
+        Slot(String key, long start, int offset, int length) {
+            this.key = key;
+            this.start = start;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final ByteBuffer arena;
+    private final int capacity;
+    private final Map<String, Slot> index = new HashMap<>();
+    // slots in write order; may still hold slots already taken or replaced
+    private final ArrayDeque<Slot> order = new ArrayDeque<>();
+    private long writePosition;
+    private long liveBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stores;
+    private final Counter evictions;
+    private final Counter rejected;
+    private final Consumer<String> onEvict;
+
+    OffHeapTier(int capacity, MeterRegistry meterRegistry, Consumer<String> onEvict) {
+        this.capacity = capacity;
+        this.onEvict = onEvict;
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.hits = counter(meterRegistry, "cache.offheap.hits", "Off-heap lookups that found the key");
+        this.misses = counter(meterRegistry, "cache.offheap.misses", "Off-heap lookups that did not find the key");
+        this.stores = counter(meterRegistry, "cache.offheap.stores", "Entries demoted from the heap tier");
+        this.evictions = counter(meterRegistry, "cache.offheap.evictions", "Entries overwritten to make room");
+        this.rejected = counter(meterRegistry, "cache.offheap.rejected", "Entries larger than the whole tier");
+        Gauge.builder("cache.offheap.bytes", this, OffHeapTier::getLiveBytes)
+                .description("Bytes of live entries in the off-heap tier")
+                .tags("cache", "query")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.offheap.entries", this, OffHeapTier::size)
+                .description("Entries in the off-heap tier")
+                .tags("cache", "query")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String description) {
+        return Counter.builder(name).description(description).tags("cache", "query").register(registry);
+    }
+
+    /**
+     * Stores bytes under key, replacing any previous entry and evicting the oldest
+     * entries as needed. Entries that could never fit are dropped, returning false.
+     */
+    synchronized boolean put(String key, byte[] bytes) {
+        if (bytes.length > capacity) {
+            rejected.increment();
+            return false;
+        }
+        int offset = (int) (writePosition % capacity);
+        if (offset + bytes.length > capacity) {
+            // don't split an entry across the end of the ring; skip to the start
+            writePosition += capacity - offset;
+            offset = 0;
+        }
+        long end = writePosition + bytes.length;
+        while (!order.isEmpty() && order.peekFirst().start < end - capacity) {
+            Slot oldest = order.pollFirst();
+            if (index.remove(oldest.key, oldest)) {
+                liveBytes -= oldest.length;
+                evictions.increment();
+                onEvict.accept(oldest.key);
+            }
+        }
+        arena.put(offset, bytes);
+        Slot slot = new Slot(key, writePosition, offset, bytes.length);
+        Slot previous = index.put(key, slot);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        order.addLast(slot);
+        liveBytes += bytes.length;
+        writePosition = end;
+        stores.increment();
+        return true;
+    }
+
+    /**
+     * Removes and returns the bytes stored under key, or null if there are none.
+     */
+    synchronized byte[] take(String key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        byte[] bytes = new byte[slot.length];
+        arena.get(slot.offset, bytes);
+        liveBytes -= slot.length;
+        hits.increment();
+        return bytes;
+    }
+
+    /**
+     * Passes a copy of every stored entry to action, leaving the entries in place.
+     */
+    synchronized void forEach(BiConsumer<String, byte[]> action) {
+        index.forEach((key, slot) -> {
+            byte[] bytes = new byte[slot.length];
+            arena.get(slot.offset, bytes);
+            action.accept(key, bytes);
+        });
+    }
+
+    synchronized void remove(String key) {
+        Slot slot = index.remove(key);
+        if (slot != null) {
+            liveBytes -= slot.length;
+        }
+    }
+
+    synchronized void clear() {
+        index.clear();
+        order.clear();
+        liveBytes = 0;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("entries", size());
+        m.put("liveBytes", getLiveBytes());
+        m.put("capacityBytes", capacity);
+        m.put("hitCount", (long) hits.count());
+        m.put("missCount", (long) misses.count());
+        m.put("storeCount", (long) stores.count());
+        m.put("evictionCount", (long) evictions.count());
+        m.put("rejectedCount", (long) rejected.count());
+        return m;
+    }
+}
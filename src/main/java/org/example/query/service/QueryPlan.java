@@ -0,0 +1,165 @@
+package org.example.query.service;
+
+import org.example.query.datasource.DataSourcePlugin;
+import org.example.schema.model.DataSource;
+import org.example.schema.model.Field;
+import org.example.schema.model.Namespace;
+import org.example.schema.model.Schema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything {@link QueryProcessor} needs to run a request against one
+ * (schema, namespace, field set, argument names) combination, resolved once
+ * and reused until the schema is reloaded.
+ */
+public class QueryPlan {
+    private final String schemaName;
+    private final Schema schema;
+    private final Namespace namespace;
+    private final DataSourcePlugin plugin;
+    private final List<Field> fields;
+    private final List<String> fieldNames;
+    private final List<String> argumentNames;
+    private final List<Field> argumentFields;
+    private final Map<String, String> dataTypes;
+    private final Set<String> dependsOn;
+
+    // plugin-specific state filled in by DataSourcePlugin.compile
+    private String sql;
+    private String dbKey;
+    private String batchSql;
+    private ViewPlan viewPlan;
+
+    public QueryPlan(String schemaName,
+                     Schema schema,
+                     Namespace namespace,
+                     DataSourcePlugin plugin,
+                     List<Field> fields,
+                     List<String> argumentNames,
+                     List<Field> argumentFields,
+                     Map<String, String> dataTypes,
+                     Set<String> dependsOn) {
+        this.schemaName = schemaName;
+        this.schema = schema;
+        this.namespace = namespace;
+        this.plugin = plugin;
+        this.fields = List.copyOf(fields);
+        this.fieldNames = fields.stream().map(Field::getName).toList();
+        this.argumentNames = List.copyOf(argumentNames);
+        this.argumentFields = argumentFields;
+        this.dataTypes = dataTypes;
+        this.dependsOn = dependsOn;
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public DataSource getSource() {
+        return schema.getSource();
+    }
+
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    public String getNamespaceName() {
+        return namespace.getNamespace();
+    }
+
+    /** true if the schema is a virtual view rather than a real data source */
+    public boolean isView() {
+        return plugin == null;
+    }
+
+    /** Plugin that executes this plan, or null for views. */
+    public DataSourcePlugin getPlugin() {
+        return plugin;
+    }
+
+    /** Requested fields resolved against the namespace (names and aliases), in namespace order. */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /** Argument names in the order their values are bound. */
+    public List<String> getArgumentNames() {
+        return argumentNames;
+    }
+
+    /** Field definitions for each argument (entries may be null), parallel to {@link #getArgumentNames()}. */
+    public List<Field> getArgumentFields() {
+        return argumentFields;
+    }
+
+    /** Field name -> type for the whole namespace, used when includeDataTypes is set. */
+    public Map<String, String> getDataTypes() {
+        return dataTypes;
+    }
+
+    /**
+     * Returns the argument values of a request in binding order.
+     */
+    public Object[] argumentValues(Map<String, Object> arguments) {
+        Object[] values = new Object[argumentNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arguments.get(argumentNames.get(i));
+        }
+        return values;
+    }
+
+    /** true if this plan was compiled from the given schema (directly or via a view). */
+    public boolean dependsOn(String schemaName) {
+        return dependsOn.contains(schemaName);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getDbKey() {
+        return dbKey;
+    }
+
+    public void setDbKey(String dbKey) {
+        this.dbKey = dbKey;
+    }
+
+    /** SQL fetching many keys in one round trip, or null if this plan cannot be batched. */
+    public String getBatchSql() {
+        return batchSql;
+    }
+
+    public void setBatchSql(String batchSql) {
+        this.batchSql = batchSql;
+    }
+
+    /** Compiled view execution plan, or null if this plan is not a view. */
+    public ViewPlan getViewPlan() {
+        return viewPlan;
+    }
+
+    public void setViewPlan(ViewPlan viewPlan) {
+        this.viewPlan = viewPlan;
+    }
+
+    /** true if requests for this plan differ only in one key argument and can share a query. */
+    public boolean isBatchable() {
+        return batchSql != null;
+    }
+}
@@ -0,0 +1,343 @@
+package org.example.query.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.query.datasource.DataSourcePlugin;
+import org.example.query.datasource.JdbcDataSourcePlugin;
+import org.example.query.join.HashJoin;
+import org.example.query.join.JoinType;
+import org.example.query.model.QueryRequest;
+import org.example.schema.model.DataSource;
+import org.example.schema.model.Field;
+import org.example.schema.model.Namespace;
+import org.example.schema.model.Schema;
+import org.example.schema.service.SchemaReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles and caches {@link QueryPlan}s keyed by schema, namespace,
+ * normalized field list and argument names. Plans are dropped whenever
+ * {@link SchemaReader} reloads a schema they were compiled from.
+ */
+@Service
+public class QueryPlanCache {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanCache.class);
+
+    private final List<DataSourcePlugin> plugins;
+    private final SqlGenerator sqlGenerator;
+    private final SchemaReader schemaReader;
+    private final ConcurrentMap<String, QueryPlan> plans = new ConcurrentHashMap<>();
+    // bumped on every invalidation so plans compiled against a stale schema are not kept
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Value("${query.view.join-pushdown:true}")
+    private boolean pushDownJoins;
+
+    @Autowired
+    public QueryPlanCache(List<DataSourcePlugin> plugins, SqlGenerator sqlGenerator, SchemaReader schemaReader) {
+        this.plugins = plugins;
+        this.sqlGenerator = sqlGenerator;
+        this.schemaReader = schemaReader;
+    }
+
+    @PostConstruct
+    public void init() {
+        schemaReader.addReloadListener(this::invalidate);
+    }
+
+    /**
+     * Returns the compiled plan for a request, compiling it on first use.
+     *
+     * @param schemaLoader resolves a schema name to a loaded Schema
+     */
+    public QueryPlan getPlan(QueryRequest req, Function<String, Schema> schemaLoader) {
+        List<String> requested = req.getFields() != null ? req.getFields() : Collections.emptyList();
+        Collection<String> argNames = req.getArguments() != null ? req.getArguments().keySet() : Collections.emptySet();
+        String key = planKey(req.getSchema(), req.getNamespace(), requested, argNames);
+
+        QueryPlan plan = plans.get(key);
+        if (plan != null) {
+            return plan;
+        }
+        long startEpoch = epoch.get();
+        plan = compile(req.getSchema(), req.getNamespace(), requested, argNames, schemaLoader);
+        QueryPlan existing = plans.putIfAbsent(key, plan);
+        if (existing != null) {
+            return existing;
+        }
+        if (epoch.get() != startEpoch) {
+            // a schema was reloaded while we were compiling; don't keep a possibly stale plan
+            plans.remove(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Drops every plan compiled from the given schema.
+     */
+    public void invalidate(String schemaName) {
+        epoch.incrementAndGet();
+        int before = plans.size();
+        plans.values().removeIf(p -> p.dependsOn(schemaName));
+        logger.debug("Invalidated {} query plan(s) for schema '{}'", before - plans.size(), schemaName);
+    }
+
+    /**
+     * Drops all compiled plans.
+     */
+    public void clear() {
+        epoch.incrementAndGet();
+        plans.clear();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    private QueryPlan compile(String schemaName,
+                              String requestedNamespace,
+                              List<String> requested,
+                              Collection<String> argNames,
+                              Function<String, Schema> schemaLoader) {
+        Schema schema = schemaLoader.apply(schemaName);
+        DataSource ds = schema.getSource();
+        boolean view = "view".equalsIgnoreCase(ds.getDataSourceType());
+
+        String namespaceName = view ? schema.getSchemaName() : requestedNamespace;
+        Namespace ns = schema.getNamespaces().stream()
+                .filter(n -> n.getNamespace().equals(namespaceName))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Namespace not found: " + namespaceName));
+
+        DataSourcePlugin plugin = null;
+        if (!view) {
+            plugin = plugins.stream()
+                    .filter(p -> p.canHandle(ds.getDataSourceType()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("No plugin for: " + ds.getDataSourceType()));
+        }
+
+        List<Field> fields = ns.getFields().stream()
+                .filter(f -> requested.contains(f.getName())
+                        || (f.getAliases() != null && f.getAliases().stream().anyMatch(requested::contains)))
+                .collect(Collectors.toList());
+
+        List<String> orderedArgs = argNames.stream().sorted().collect(Collectors.toList());
+        List<Field> argFields = new ArrayList<>(orderedArgs.size());
+        for (String arg : orderedArgs) {
+            argFields.add(findFieldByNameOrAlias(ns, arg));
+        }
+
+        Map<String, String> types = new LinkedHashMap<>();
+        ns.getFields().forEach(f -> types.put(f.getName(), f.getType()));
+
+        Set<String> dependsOn = new HashSet<>();
+        dependsOn.add(schemaName);
+        dependsOn.add(schema.getSchemaName());
+        if (view) {
+            if (ds.getBase() != null) {
+                dependsOn.add(ds.getBase().getSchema());
+            }
+            if (ds.getJoins() != null) {
+                ds.getJoins().forEach(j -> dependsOn.add(j.getSchema()));
+            }
+        }
+
+        QueryPlan plan = new QueryPlan(schemaName, schema, ns, plugin, fields,
+                orderedArgs, Collections.unmodifiableList(argFields),
+                Collections.unmodifiableMap(types), dependsOn);
+        if (plugin != null) {
+            plugin.compile(plan);
+        } else {
+            plan.setViewPlan(compileView(schema, argNames, schemaLoader));
+        }
+        logger.debug("Compiled query plan for {}.{} fields={} args={}",
+                schemaName, namespaceName, plan.getFieldNames(), orderedArgs);
+        return plan;
+    }
+
+    /**
+     * Resolves a view's base namespace, the columns the base query must select,
+     * a plan per join, and the projection of every view field onto its source.
+     */
+    private ViewPlan compileView(Schema viewSchema, Collection<String> argNames, Function<String, Schema> schemaLoader) {
+        DataSource ds = viewSchema.getSource();
+        String key = ds.getGlobalKey();
+        DataSource.BaseDefinition baseDef = ds.getBase();
+        List<DataSource.JoinDefinition> joinDefs = ds.getJoins() != null ? ds.getJoins() : Collections.emptyList();
+
+        Schema baseSchema = schemaLoader.apply(baseDef.getSchema());
+        Namespace baseNs = baseSchema.getNamespaces().stream()
+                .filter(n -> n.getNamespace().equals(baseDef.getNamespace()))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Namespace not found: " + baseDef.getNamespace()));
+
+        // project each view field onto the base or the first join of its namespace
+        List<String> outputColumns = new ArrayList<>();
+        List<String> baseFields = new ArrayList<>();
+        List<Field> computed = new ArrayList<>();
+        List<String> baseColumns = new ArrayList<>();
+        List<Integer> basePositions = new ArrayList<>();
+        List<List<String>> joinColumns = new ArrayList<>();
+        List<List<Integer>> joinPositions = new ArrayList<>();
+        for (int j = 0; j < joinDefs.size(); j++) {
+            joinColumns.add(new ArrayList<>());
+            joinPositions.add(new ArrayList<>());
+        }
+
+        List<DataSource.ViewField> viewFields = ds.getViewFields();
+        for (int p = 0; p < viewFields.size(); p++) {
+            DataSource.ViewField fm = viewFields.get(p);
+            outputColumns.add(fm.getAs());
+            int dot = fm.getFrom().indexOf('.');
+            String nsName = fm.getFrom().substring(0, dot);
+            String fname = fm.getFrom().substring(dot + 1);
+
+            if (nsName.equals(baseDef.getNamespace())) {
+                Field fdef = baseNs.getFields().stream()
+                        .filter(f -> f.getName().equals(fname))
+                        .findFirst()
+                        .orElseThrow(() -> new RuntimeException("View field not found: " + fm.getFrom()));
+                if (fdef.isComputed() && fdef.getTransformer() != null && fdef.getTransformer().getFields() != null) {
+                    fdef.getTransformer().getFields().forEach(f -> addDistinct(baseFields, f));
+                    computed.add(fdef);
+                } else {
+                    addDistinct(baseFields, fname);
+                }
+                baseColumns.add(fname);
+                basePositions.add(p);
+                continue;
+            }
+            for (int j = 0; j < joinDefs.size(); j++) {
+                if (nsName.equals(joinDefs.get(j).getNamespace())) {
+                    joinColumns.get(j).add(fname);
+                    joinPositions.get(j).add(p);
+                    break;
+                }
+            }
+        }
+        // each join is compiled to its own plan, always including its key; base rows are
+        // matched on the view's global key against the join's own key. Joins on the base's
+        // database are pushed into the base SQL, the rest are hash joined in memory
+        Map<String, Object> joinArgs = new LinkedHashMap<>();
+        argNames.forEach(a -> joinArgs.put(a, null));
+        String baseDbKey = baseSchema.getSource().getDbName().toLowerCase();
+        List<ViewPlan.ViewJoin> joins = new ArrayList<>();
+        List<HashJoin.JoinSpec> specs = new ArrayList<>();
+        List<QueryPlan> pushedPlans = new ArrayList<>();
+        List<SqlGenerator.JoinClause> pushed = new ArrayList<>();
+        for (int j = 0; j < joinDefs.size(); j++) {
+            DataSource.JoinDefinition jd = joinDefs.get(j);
+            List<String> fields = new ArrayList<>();
+            joinColumns.get(j).forEach(f -> addDistinct(fields, f));
+            addDistinct(fields, jd.getKey());
+
+            QueryRequest jr = new QueryRequest();
+            jr.setSchema(jd.getSchema());
+            jr.setNamespace(jd.getNamespace());
+            jr.setArguments(joinArgs);
+            jr.setFields(fields);
+            QueryPlan joinPlan = getPlan(jr, schemaLoader);
+            if (joinPlan.isView()) {
+                throw new RuntimeException("View " + viewSchema.getSchemaName() + " cannot join another view: " + jd.getSchema());
+            }
+
+            JoinType type = JoinType.of(jd.getType());
+            if (canPushDown(joinPlan, type, baseDbKey)) {
+                int n = pushed.size();
+                pushed.add(new SqlGenerator.JoinClause(joinPlan.getNamespace(), type.name(), key, jd.getKey(),
+                        joinColumns.get(j), joinPlan.getArgumentNames()));
+                pushedPlans.add(joinPlan);
+                joinColumns.get(j).forEach(c -> baseColumns.add(SqlGenerator.joinColumnAlias(n, c)));
+                basePositions.addAll(joinPositions.get(j));
+                continue;
+            }
+            joins.add(new ViewPlan.ViewJoin(jd, joinPlan));
+            specs.add(new HashJoin.JoinSpec(key, jd.getKey(), type,
+                    new HashJoin.Projection(joinColumns.get(j), joinPositions.get(j))));
+        }
+
+        if (!baseFields.contains(key)) {
+            baseFields.add(0, key);
+        }
+        String baseSql;
+        if (pushed.isEmpty()) {
+            baseSql = sqlGenerator.generateSql(baseNs, baseFields, List.of(key));
+        } else {
+            baseSql = sqlGenerator.generateJoinSql(baseNs, baseFields, key, pushed);
+            logger.debug("Pushed {} join(s) of view {} into base query: {}", pushed.size(), viewSchema.getSchemaName(), baseSql);
+        }
+
+        HashJoin hashJoin = new HashJoin(outputColumns.size(),
+                new HashJoin.Projection(baseColumns, basePositions), specs);
+        return new ViewPlan(
+                key,
+                baseNs,
+                baseDbKey,
+                baseSql,
+                baseFields,
+                findFieldByNameOrAlias(baseNs, key),
+                computed,
+                pushedPlans,
+                joins,
+                outputColumns,
+                hashJoin
+        );
+    }
+
+    /**
+     * A join can run inside the base query when it reads the same JDBC database, every view
+     * argument resolves to one of its columns, and it is not a right join (the base query is
+     * filtered by the view key, which would drop the unmatched join rows a right join keeps).
+     */
+    private boolean canPushDown(QueryPlan joinPlan, JoinType type, String baseDbKey) {
+        return pushDownJoins
+                && type != JoinType.RIGHT
+                && joinPlan.getPlugin() instanceof JdbcDataSourcePlugin
+                && baseDbKey.equals(joinPlan.getDbKey())
+                && !joinPlan.getArgumentFields().contains(null);
+    }
+
+    private static void addDistinct(List<String> list, String value) {
+        if (!list.contains(value)) {
+            list.add(value);
+        }
+    }
+
+    private static String planKey(String schema, String namespace, List<String> fields, Collection<String> argNames) {
+        return schema + '|' + namespace
+                + '|' + fields.stream().distinct().sorted().collect(Collectors.joining(","))
+                + '|' + argNames.stream().sorted().collect(Collectors.joining(","));
+    }
+
+    private static Field findFieldByNameOrAlias(Namespace ns, String nameOrAlias) {
+        for (Field f : ns.getFields()) {
+            if (f.getName().equals(nameOrAlias)) {
+                return f;
+            }
+        }
+        for (Field f : ns.getFields()) {
+            if (f.getAliases() != null && f.getAliases().contains(nameOrAlias)) {
+                return f;
+            }
+        }
+        return null;
+    }
+}
@@ -1,11 +1,12 @@
 
         package org.example.query.service;
 
-import org.example.query.datasource.DataSourcePlugin;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.query.model.JsonQuery;
 import org.example.query.model.JsonQueryResponse;
 import org.example.query.model.QueryRequest;
 import org.example.query.model.QueryResponse;
+import org.example.query.model.RowSet;
 import org.example.schema.model.DataSource;
 import org.example.schema.model.Field;
 import org.example.schema.model.Namespace;
@@ -23,6 +24,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,86 +39,328 @@ public class QueryProcessor {
     private final SchemaReader schemaReader;
     private final CacheService cacheService;
     private final ResourceLoader resourceLoader;
-    private final List<DataSourcePlugin> plugins;
     private final SqlGenerator sqlGenerator;
+    private final SubQueryExecutor subQueryExecutor;
+    private final QueryPlanCache queryPlanCache;
+    private final RowCache rowCache;
+    private final ObjectMapper objectMapper;
+    private final WarmupRecorder warmupRecorder;
+    private final HotKeyTracker hotKeys;
 
     @Value("${schema.directory}")
     private String schemaDirectory;
 
+    @Value("${query.view.join-timeout-ms:5000}")
+    private long joinTimeoutMs;
+
+    @Value("${query.batching.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${query.batching.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${query.batching.fallback-parallelism:8}")
+    private int fallbackParallelism;
+
+    @Value("${query.streaming.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${cache.serialized-results.enabled:false}")
+    private boolean serializedResults;
+
     @Autowired
     public QueryProcessor(
             SchemaReader schemaReader,
             CacheService cacheService,
             ResourceLoader resourceLoader,
-            List<DataSourcePlugin> plugins,
-            SqlGenerator sqlGenerator
+            SqlGenerator sqlGenerator,
+            SubQueryExecutor subQueryExecutor,
+            QueryPlanCache queryPlanCache,
+            RowCache rowCache,
+            ObjectMapper objectMapper,
+            WarmupRecorder warmupRecorder,
+            HotKeyTracker hotKeys
     ) {
         this.schemaReader = schemaReader;
         this.cacheService = cacheService;
         this.resourceLoader = resourceLoader;
-        this.plugins = plugins;
         this.sqlGenerator = sqlGenerator;
+        this.subQueryExecutor = subQueryExecutor;
+        this.queryPlanCache = queryPlanCache;
+        this.rowCache = rowCache;
+        this.objectMapper = objectMapper;
+        this.warmupRecorder = warmupRecorder;
+        this.hotKeys = hotKeys;
     }
 
-    public JsonQueryResponse processQuery(JsonQuery query) {
-        logger.info("Processing query with {} sub-queries", query.getQueries().size());
-        List<CompletableFuture<QueryResponse>> futures = query.getQueries().stream()
-                .map(req -> CompletableFuture.supplyAsync(() -> processSingle(req, query.isIncludeDataTypes())))
-                .collect(Collectors.toList());
+    /**
+     * Runs every sub-query of a request and completes with their responses, in
+     * request order. Sub-queries are composed as asynchronous stages, so one
+     * waiting on its data source holds no thread.
+     */
+    public CompletableFuture<JsonQueryResponse> processQuery(JsonQuery query) {
+        List<QueryRequest> queries = query.getQueries();
+        boolean includeDataTypes = query.isIncludeDataTypes();
+        logger.info("Processing query with {} sub-queries", queries.size());
 
-        List<QueryResponse> results = futures.stream()
-                .map(CompletableFuture::join)
+        // Sub-queries that share a plan (same namespace, fields and argument names) run as
+        // one batch through their plugin, which turns them into as few lookups as it can;
+        // views run on their own.
+        List<QueryPlan> plans = new ArrayList<>(queries.size());
+        for (QueryRequest req : queries) {
+            QueryPlan plan = queryPlanCache.getPlan(req, this::loadSchema);
+            plans.add(plan);
+            if (plan.getNamespace().isCacheable() && warmupRecorder.isEnabled()) {
+                warmupRecorder.record(resultCacheKey(plan, req), req);
+            }
+        }
+        List<List<Integer>> groups = groupSubQueries(plans);
+
+        List<Supplier<CompletionStage<List<QueryResponse>>>> tasks = groups.stream()
+                .map(idx -> (Supplier<CompletionStage<List<QueryResponse>>>) () -> idx.size() == 1
+                        ? processSingle(plans.get(idx.get(0)), queries.get(idx.get(0)), includeDataTypes).thenApply(List::of)
+                        : subQueryExecutor.submit(() -> processBatch(plans.get(idx.get(0)), idx.stream().map(queries::get).collect(Collectors.toList()), includeDataTypes)))
                 .collect(Collectors.toList());
+        List<CompletableFuture<List<QueryResponse>>> futures = subQueryExecutor.composeAll(tasks);
 
-        JsonQueryResponse resp = new JsonQueryResponse();
-        resp.setResults(results);
-        resp.setIncludeDataTypes(query.isIncludeDataTypes());
-        return resp;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            QueryResponse[] results = new QueryResponse[queries.size()];
+            for (int g = 0; g < groups.size(); g++) {
+                List<QueryResponse> groupResults = futures.get(g).join();
+                for (int j = 0; j < groupResults.size(); j++) {
+                    results[groups.get(g).get(j)] = groupResults.get(j);
+                }
+            }
+
+            JsonQueryResponse resp = new JsonQueryResponse();
+            resp.setResults(Arrays.asList(results));
+            resp.setIncludeDataTypes(includeDataTypes);
+            return resp;
+        });
+    }
+
+    /**
+     * Runs one request and hands its rows to {@code sink} as they are read. Rows of JDBC
+     * namespaces come straight off a database cursor; views and other sources are
+     * executed as usual and then replayed. Streaming bypasses the result cache.
+     */
+    public void streamQuery(QueryRequest req, Consumer<Map<String,Object>> sink) {
+        QueryPlan plan = queryPlanCache.getPlan(req, this::loadSchema);
+        logger.info("Streaming {}.{} fields={}", plan.getSchemaName(), plan.getNamespaceName(), plan.getFieldNames());
+        if (plan.isView()) {
+            join(processViewQuery(plan, req)).forEach(sink);
+        } else {
+            plan.getPlugin().stream(plan, req, streamFetchSize, sink);
+        }
+    }
+
+    /**
+     * Loads a request into the cache the way a client request would, for cache
+     * warming. Returns false, without running it, if its namespace is not cacheable.
+     */
+    public boolean warm(QueryRequest req) {
+        QueryPlan plan = queryPlanCache.getPlan(req, this::loadSchema);
+        if (!plan.getNamespace().isCacheable()) {
+            return false;
+        }
+        join(processSingle(plan, req, false));
+        return true;
     }
 
-    private QueryResponse processSingle(QueryRequest req, boolean includeDataTypes) {
-        // 1) Load schema & data-source
-        Schema schema = loadSchema(req.getSchema());
-        DataSource ds = schema.getSource();
-
-        // 2) Determine namespace
-        String namespaceName = ds.getDataSourceType().equalsIgnoreCase("view")
-                ? schema.getSchemaName()
-                : req.getNamespace();
-        Namespace ns = requireNamespace(schema, namespaceName);
-
-        // 3) Attempt cache
-        if (ns.isCacheable()) {
-            String cacheKey = buildCacheKey(ns.getCacheKeyPattern(), req.getArguments());
-            @SuppressWarnings("unchecked")
-            List<Map<String,Object>> cached = (List<Map<String,Object>>) cacheService.get(cacheKey);
-            if (cached != null) {
-                logger.debug("Cache hit for '{}'; returning cached rows", cacheKey);
-                return buildResponse(namespaceName, ds.getDataSource(), schema.getSchemaName(), cached, includeDataTypes, schema);
+    /** Name of the data source a request reads from, as declared in its schema. */
+    public String dataSourceOf(QueryRequest req) {
+        return queryPlanCache.getPlan(req, this::loadSchema).getSource().getDataSource();
+    }
+
+    /**
+     * Groups sub-query indexes by plan, splitting groups larger than
+     * query.batching.max-batch-size. View sub-queries get a group of their own.
+     */
+    private List<List<Integer>> groupSubQueries(List<QueryPlan> plans) {
+        List<List<Integer>> groups = new ArrayList<>();
+        Map<QueryPlan, List<Integer>> open = new IdentityHashMap<>();
+        for (int i = 0; i < plans.size(); i++) {
+            QueryPlan plan = plans.get(i);
+            if (!batchingEnabled || plan.isView()) {
+                groups.add(List.of(i));
+                continue;
+            }
+            List<Integer> group = open.get(plan);
+            if (group == null || group.size() >= maxBatchSize) {
+                group = new ArrayList<>();
+                open.put(plan, group);
+                groups.add(group);
             }
+            group.add(i);
+        }
+        return groups;
+    }
+
+    private CompletableFuture<QueryResponse> processSingle(QueryPlan plan, QueryRequest req, boolean includeDataTypes) {
+        Namespace ns = plan.getNamespace();
+
+        // 1) Serve from cache, or execute via plugin or view logic.
+        //    Cacheable loads are single-flight: concurrent misses on one key share a load,
+        //    which runs on the sub-query executor. Hot keys of other namespaces are cached
+        //    briefly too. Everything else is composed without blocking.
+        long hotTtl = hotKeys.isEnabled() ? recordHotKey(plan, req) : 0;
+        if (!rowCache.supports(plan) && !ns.isCacheable() && hotTtl <= 0) {
+            return executeAsync(plan, req).thenApply(rows -> buildResponse(plan, rows, includeDataTypes));
         }
 
-        // 4) Execute via plugin or view logic
+        // 2) Build and return
+        return subQueryExecutor.submit(() -> buildResponse(plan, loadCached(plan, req, hotTtl), includeDataTypes));
+    }
+
+    private List<Map<String,Object>> loadCached(QueryPlan plan, QueryRequest req, long hotTtl) {
+        Namespace ns = plan.getNamespace();
         List<Map<String,Object>> rows;
-        if (ds.getDataSourceType().equalsIgnoreCase("view")) {
-            rows = processViewQuery(schema, req);
+        if (rowCache.supports(plan)) {
+            rows = rowCache.get(plan, req, this::loadSchema);
+        } else if (ns.isCacheable()) {
+            String cacheKey = resultCacheKey(plan, req);
+            // cached results are kept as compact RowSets whatever the source returned
+            rows = cacheService.getOrLoad(cacheKey, CachePolicy.of(ns), () -> cachedRows(execute(plan, req)),
+                    loaded -> CacheTags.of(plan, req.getArguments(), loaded));
+        } else {
+            rows = cacheService.getOrLoad(hotKey(plan, req), CachePolicy.ttl(hotTtl), () -> cachedRows(execute(plan, req)),
+                    loaded -> CacheTags.of(plan, req.getArguments(), loaded));
+        }
+        return rows;
+    }
+
+    /**
+     * Runs requests that share one plan as a single batch through the plugin's
+     * {@link org.example.query.datasource.DataSourcePlugin#executeBatch} and splits
+     * the rows back into one response per request. Requests cached as results or
+     * as hot keys are answered directly and only misses are looked up.
+     */
+    private List<QueryResponse> processBatch(QueryPlan plan, List<QueryRequest> reqs, boolean includeDataTypes) {
+        List<List<Map<String,Object>>> rows;
+        if (rowCache.supports(plan)) {
+            if (hotKeys.isEnabled()) {
+                reqs.forEach(req -> recordHotKey(plan, req));
+            }
+            rows = rowCache.getAll(plan, reqs, this::loadSchema);
         } else {
-            DataSourcePlugin plugin = plugins.stream()
-                    .filter(p -> p.canHandle(ds.getDataSourceType()))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("No plugin for: " + ds.getDataSourceType()));
-            rows = plugin.execute(ns, req, schema);
+            rows = loadBatch(plan, reqs);
+        }
+
+        List<QueryResponse> out = new ArrayList<>(reqs.size());
+        for (List<Map<String,Object>> r : rows) {
+            out.add(buildResponse(plan, r, includeDataTypes));
+        }
+        return out;
+    }
+
+    private List<List<Map<String,Object>>> loadBatch(QueryPlan plan, List<QueryRequest> reqs) {
+        Namespace ns = plan.getNamespace();
+        List<List<Map<String,Object>>> rows = new ArrayList<>(Collections.nCopies(reqs.size(), null));
+
+        // cacheable namespaces go through the result cache, hot keys of others are cached briefly
+        String[] keys = new String[reqs.size()];
+        CachePolicy[] policies = new CachePolicy[reqs.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < reqs.size(); i++) {
+            QueryRequest req = reqs.get(i);
+            long hotTtl = hotKeys.isEnabled() ? recordHotKey(plan, req) : 0;
+            if (ns.isCacheable()) {
+                keys[i] = resultCacheKey(plan, req);
+                policies[i] = CachePolicy.of(ns);
+            } else if (hotTtl > 0) {
+                keys[i] = hotKey(plan, req);
+                policies[i] = CachePolicy.ttl(hotTtl);
+            }
+            if (keys[i] != null) {
+                List<Map<String,Object>> cached = cacheService.get(keys[i], policies[i]);
+                if (cached != null) {
+                    rows.set(i, cached);
+                    continue;
+                }
+            }
+            misses.add(i);
         }
 
-        // 5) Populate cache
-        if (ns.isCacheable()) {
-            String cacheKey = buildCacheKey(ns.getCacheKeyPattern(), req.getArguments());
-            cacheService.put(cacheKey, rows, ns.getCacheTTL());
-            logger.debug("Cached {} rows under key='{}' TTL={}s", rows.size(), cacheKey, ns.getCacheTTL());
+        if (!misses.isEmpty()) {
+            List<QueryRequest> missed = misses.stream().map(reqs::get).collect(Collectors.toList());
+            List<List<Map<String,Object>>> loaded = plan.getPlugin().executeBatch(plan, missed, fallbackParallelism);
+            for (int j = 0; j < misses.size(); j++) {
+                int i = misses.get(j);
+                List<Map<String,Object>> r = keys[i] != null ? cachedRows(loaded.get(j)) : loaded.get(j);
+                rows.set(i, r);
+                if (keys[i] != null) {
+                    cacheService.put(keys[i], r, policies[i], CacheTags.of(plan, missed.get(j).getArguments(), r));
+                }
+            }
         }
+        return rows;
+    }
+
+    private List<Map<String,Object>> execute(QueryPlan plan, QueryRequest req) {
+        return plan.isView()
+                ? join(processViewQuery(plan, req))
+                : plan.getPlugin().execute(plan, req);
+    }
+
+    private CompletableFuture<List<Map<String,Object>>> executeAsync(QueryPlan plan, QueryRequest req) {
+        return plan.isView()
+                ? processViewQuery(plan, req)
+                : subQueryExecutor.limit(() -> plan.getPlugin().executeAsync(plan, req));
+    }
+
+    /** Waits for a stage, rethrowing its failure as it was thrown. */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Counts a request towards its namespace's hot keys and returns how long to
+     * cache it for as a hot key (0 if it isn't one, or its namespace is cacheable anyway).
+     */
+    private long recordHotKey(QueryPlan plan, QueryRequest req) {
+        Namespace ns = plan.getNamespace();
+        int count = hotKeys.record(plan.getSchemaName() + "." + plan.getNamespaceName(),
+                ns.isCacheable() ? resultCacheKey(plan, req) : hotKey(plan, req));
+        return ns.isCacheable() ? 0 : hotKeys.ttlSeconds(count);
+    }
+
+    /**
+     * Cache key of a request to a namespace without a cache key pattern: the
+     * namespace, the argument values in plan order and the requested fields.
+     */
+    private String hotKey(QueryPlan plan, QueryRequest req) {
+        Map<String,Object> args = req.getArguments() != null ? req.getArguments() : Collections.emptyMap();
+        StringJoiner values = new StringJoiner(",");
+        for (String name : plan.getArgumentNames()) {
+            values.add(String.valueOf(args.get(name)));
+        }
+        return "hot::" + plan.getSchemaName() + "." + plan.getNamespaceName() + ":" + values
+                + "#" + String.join(",", plan.getFieldNames());
+    }
 
-        // 6) Build and return
-        return buildResponse(namespaceName, ds.getDataSource(), schema.getSchemaName(), rows, includeDataTypes, schema);
+    /**
+     * Rows as stored in the result cache: a RowSet, also holding its serialized
+     * JSON when cache.serialized-results.enabled, so hits skip serialization.
+     */
+    private RowSet cachedRows(List<Map<String,Object>> rows) {
+        RowSet rs = RowSet.copyOf(rows);
+        return serializedResults ? rs.retainJson(objectMapper) : rs;
+    }
+
+    /**
+     * Key of a whole cached result: the namespace's cache key pattern plus the
+     * requested fields, so different projections of one key don't collide.
+     */
+    private String resultCacheKey(QueryPlan plan, QueryRequest req) {
+        return buildCacheKey(plan.getNamespace().getCacheKeyPattern(), req.getArguments())
+                + "#" + String.join(",", plan.getFieldNames());
     }
 
     private String buildCacheKey(String pattern, Map<String,Object> args) {
@@ -122,36 +371,18 @@ public class QueryProcessor {
         return key;
     }
 
-    private QueryResponse buildResponse(
-            String namespace,
-            String dataSource,
-            String schemaName,
-            List<Map<String,Object>> data,
-            boolean includeDataTypes,
-            Schema schema
-    ) {
+    private QueryResponse buildResponse(QueryPlan plan, List<Map<String,Object>> data, boolean includeDataTypes) {
         QueryResponse resp = new QueryResponse();
-        resp.setNamespace(namespace);
-        resp.setDataSource(dataSource);
-        resp.setSchema(schemaName);
+        resp.setNamespace(plan.getNamespaceName());
+        resp.setDataSource(plan.getSource().getDataSource());
+        resp.setSchema(plan.getSchema().getSchemaName());
         resp.setData(data);
         if (includeDataTypes) {
-            Map<String,String> types = new LinkedHashMap<>();
-            requireNamespace(schema, namespace)
-                    .getFields()
-                    .forEach(f -> types.put(f.getName(), f.getType()));
-            resp.setDataTypes(types);
+            resp.setDataTypes(plan.getDataTypes());
         }
         return resp;
     }
 
-    private Namespace requireNamespace(Schema schema, String name) {
-        return schema.getNamespaces().stream()
-                .filter(n -> n.getNamespace().equals(name))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Namespace not found: " + name));
-    }
-
     private Schema loadSchema(String name) {
         try {
             if (schemaReader.isCached(name)) return schemaReader.getFromCache(name);
@@ -163,106 +394,106 @@ public class QueryProcessor {
         }
     }
 
-    private List<Map<String,Object>> processViewQuery(Schema viewSchema, QueryRequest req) {
-        DataSource ds = viewSchema.getSource();
-        String key = ds.getGlobalKey();
-        var baseDef = ds.getBase();
-        var joins = ds.getJoins();
-
-        // 1) Base table: expand computed fields
-        Schema dbSchema = loadSchema(baseDef.getSchema());
-        Namespace dbNs = requireNamespace(dbSchema, baseDef.getNamespace());
-        Map<String,Object> baseParams = Map.of(key, req.getArguments().get(key));
-        List<String> baseFields = new ArrayList<>();
-        for (var fm : ds.getViewFields()) {
-            if (fm.getFrom().startsWith(baseDef.getNamespace() + ".")) {
-                String fname = fm.getFrom().substring(baseDef.getNamespace().length() + 1);
-                Field fdef = dbNs.getFields().stream()
-                        .filter(f -> f.getName().equals(fname))
-                        .findFirst().orElseThrow();
-                if (Boolean.TRUE.equals(fdef.isComputed()) && fdef.getTransformer()!=null) {
-                    baseFields.addAll(fdef.getTransformer().getFields());
-                } else {
-                    baseFields.add(fname);
-                }
+    private CompletableFuture<List<Map<String,Object>>> processViewQuery(QueryPlan plan, QueryRequest req) {
+        Schema viewSchema = plan.getSchema();
+        ViewPlan view = plan.getViewPlan();
+        List<ViewPlan.ViewJoin> joins = view.getJoins();
+
+        // 1) Launch every join and the base query concurrently; each join is cut off at its deadline
+        List<CompletableFuture<List<Map<String,Object>>>> joinFutures = new ArrayList<>();
+        for (var join : joins) {
+            joinFutures.add(withDeadline(viewSchema, join.getDefinition(), fetchJoinRows(join.getPlan(), req)));
+        }
+        CompletableFuture<List<Map<String,Object>>> baseFuture = subQueryExecutor.submit(() -> fetchBaseRows(view, req));
+
+        // 2) Once all are in, hash join base + joins into the view's columns
+        List<CompletableFuture<?>> all = new ArrayList<>(joinFutures);
+        all.add(baseFuture);
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<List<Map<String,Object>>> joinRows = new ArrayList<>(joins.size());
+            for (var f : joinFutures) {
+                joinRows.add(f.join());
             }
+            return new RowSet(view.getOutputHeader(), view.getHashJoin().join(baseFuture.join(), joinRows));
+        });
+    }
+
+    /**
+     * Fetches the base rows of a view, together with any joins pushed down into the
+     * base SQL, and expands computed fields in-memory.
+     */
+    private List<Map<String,Object>> fetchBaseRows(ViewPlan view, QueryRequest req) {
+        Map<String,Object> args = req.getArguments() != null ? req.getArguments() : Collections.emptyMap();
+        List<Object> params = new ArrayList<>();
+        for (QueryPlan pushed : view.getPushedJoins()) {
+            params.addAll(Arrays.asList(sqlGenerator.bindParameters(pushed.getArgumentFields(), pushed.argumentValues(args))));
+        }
+        params.addAll(Arrays.asList(sqlGenerator.bindParameters(
+                Collections.singletonList(view.getBaseKeyField()), new Object[] { args.get(view.getKeyName()) })));
+        List<Map<String,Object>> baseRows = sqlGenerator.executePrepared(
+                view.getBaseDbKey(), view.getBaseSql(), params.toArray(), view.getBaseFields(), view.getBaseNamespace());
+        if (view.getComputedFields().isEmpty()) {
+            return baseRows;
         }
-        if (!baseFields.contains(key)) baseFields.add(0, key);
-        String baseSql = sqlGenerator.generateSql(dbNs, baseFields, baseParams);
-        List<Map<String,Object>> baseRows = sqlGenerator.executeSql(
-                dbSchema.getSource().getDbName().toLowerCase(),
-                baseSql, baseParams, baseFields, dbNs
-        );
-
-        // compute computed fields in-memory
+
+        // compute computed fields in-memory, into columns appended to the base rows
+        baseRows = RowSet.copyOf(baseRows).withColumns(
+                view.getComputedFields().stream().map(Field::getName).collect(Collectors.toList()));
         for (var row : baseRows) {
-            for (var fm : ds.getViewFields()) {
-                if (fm.getFrom().startsWith(baseDef.getNamespace() + ".")) {
-                    String fname = fm.getFrom().substring(baseDef.getNamespace().length() + 1);
-                    Field fdef = dbNs.getFields().stream()
-                            .filter(f -> f.getName().equals(fname))
-                            .findFirst().orElseThrow();
-                    if (Boolean.TRUE.equals(fdef.isComputed()) && fdef.getTransformer()!=null) {
-                        List<String> parts = fdef.getTransformer().getFields();
-                        String sep = fdef.getTransformer().getSeparator();
-                        StringBuilder sb = new StringBuilder();
-                        for (int i=0; i<parts.size(); i++) {
-                            if (i>0) sb.append(sep);
-                            sb.append(row.get(parts.get(i)));
-                        }
-                        row.put(fname, sb.toString());
-                    }
+            for (Field fdef : view.getComputedFields()) {
+                List<String> parts = fdef.getTransformer().getFields();
+                String sep = fdef.getTransformer().getSeparator();
+                StringBuilder sb = new StringBuilder();
+                for (int i=0; i<parts.size(); i++) {
+                    if (i>0) sb.append(sep);
+                    sb.append(row.get(parts.get(i)));
                 }
+                row.put(fdef.getName(), sb.toString());
             }
         }
+        return baseRows;
+    }
 
-        // 2) Build join maps
-        List<Map<String,Map<String,Object>>> joinMaps = new ArrayList<>();
-        for (var jd : joins) {
-            Schema joinSchema = loadSchema(jd.getSchema());
-            Namespace joinNs = requireNamespace(joinSchema, jd.getNamespace());
-            QueryRequest jr = new QueryRequest();
-            jr.setSchema(jd.getSchema());
-            jr.setNamespace(jd.getNamespace());
-            jr.setArguments(req.getArguments());
-            jr.setFields(ds.getViewFields().stream()
-                    .filter(fm -> fm.getFrom().startsWith(jd.getNamespace() + "."))
-                    .map(fm -> fm.getFrom().substring(jd.getNamespace().length()+1))
-                    .collect(Collectors.toList())
-            );
-            DataSourcePlugin plugin = plugins.stream()
-                    .filter(p -> p.canHandle(joinSchema.getSource().getDataSourceType()))
-                    .findFirst().orElseThrow();
-            List<Map<String,Object>> joinRows = plugin.execute(joinNs, jr, joinSchema);
-            Map<String,Map<String,Object>> map = joinRows.stream()
-                    .collect(Collectors.toMap(
-                            r -> String.valueOf(r.get(jd.getKey())),
-                            r -> r,
-                            (a,b) -> a
-                    ));
-            joinMaps.add(map);
-        }
+    /**
+     * Fetches the rows of one view join through its compiled plan.
+     */
+    private CompletableFuture<List<Map<String,Object>>> fetchJoinRows(QueryPlan joinPlan, QueryRequest req) {
+        QueryRequest jr = new QueryRequest();
+        jr.setSchema(joinPlan.getSchemaName());
+        jr.setNamespace(joinPlan.getNamespaceName());
+        jr.setArguments(req.getArguments());
+        jr.setFields(joinPlan.getFieldNames());
+        return subQueryExecutor.limit(() -> joinPlan.getPlugin().executeAsync(joinPlan, jr));
+    }
 
-        // 3) Merge base + joins
-        List<Map<String,Object>> out = new ArrayList<>();
-        for (var base : baseRows) {
-            String baseVal = String.valueOf(base.get(key));
-            Map<String,Object> rec = new HashMap<>();
-            for (var fm : ds.getViewFields()) {
-                String[] parts = fm.getFrom().split("\\.");
-                String nsName = parts[0], fld = parts[1];
-                if (nsName.equals(baseDef.getNamespace())) {
-                    rec.put(fm.getAs(), base.get(fld));
-                } else {
-                    for (int i=0; i<joins.size(); i++) {
-                        if (nsName.equals(joins.get(i).getNamespace())) {
-                            rec.put(fm.getAs(), joinMaps.get(i).getOrDefault(baseVal, Collections.emptyMap()).get(fld));
-                        }
-                    }
+    /**
+     * Bounds a join's rows by its deadline. A left join that misses its deadline
+     * contributes no rows, so its view fields come out null; any other join type
+     * fails the view.
+     */
+    private CompletableFuture<List<Map<String,Object>>> withDeadline(Schema viewSchema,
+                                                                     DataSource.JoinDefinition jd,
+                                                                     CompletableFuture<List<Map<String,Object>>> future) {
+        long timeoutMs = jd.getTimeoutMs() != null ? jd.getTimeoutMs() : joinTimeoutMs;
+        boolean optional = "left".equalsIgnoreCase(jd.getType());
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).handle((rows, err) -> {
+            if (err == null) {
+                return rows;
+            }
+            Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+            if (cause instanceof TimeoutException) {
+                if (optional) {
+                    logger.warn("Left join {}.{} of view {} missed its {}ms deadline; returning nulls",
+                            jd.getSchema(), jd.getNamespace(), viewSchema.getSchemaName(), timeoutMs);
+                    return Collections.emptyList();
                 }
+                throw new RuntimeException("Join " + jd.getSchema() + "." + jd.getNamespace()
+                        + " of view " + viewSchema.getSchemaName() + " timed out after " + timeoutMs + "ms", cause);
             }
-            out.add(rec);
-        }
-        return out;
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("Join " + jd.getSchema() + "." + jd.getNamespace() + " failed", cause);
+        });
     }
 }
\ No newline at end of file
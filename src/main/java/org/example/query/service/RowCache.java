@@ -0,0 +1,224 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.query.datasource.JdbcDataSourcePlugin;
+import org.example.query.model.QueryRequest;
+import org.example.query.model.RowSet;
+import org.example.schema.model.Field;
+import org.example.schema.model.Namespace;
+import org.example.schema.model.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Entity-level cache for cacheable JDBC namespaces queried by their primary key.
+ * Each key's rows are cached once, under the namespace and key value, with the
+ * union of all fields fetched for it so far; a request is answered by projecting
+ * those rows onto its fields. Keys whose cached rows lack some requested fields
+ * are fetched again with the union of cached and requested fields, since the
+ * primary key need not identify a single row to stitch extra columns onto.
+ */
+@Service
+public class RowCache {
+    private static final Logger logger = LoggerFactory.getLogger(RowCache.class);
+
+    private final CacheService cacheService;
+    private final QueryPlanCache queryPlanCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cache.serialized-results.enabled:false}")
+    private boolean serializedResults;
+
+    @Autowired
+    public RowCache(CacheService cacheService, QueryPlanCache queryPlanCache, ObjectMapper objectMapper) {
+        this.cacheService = cacheService;
+        this.queryPlanCache = queryPlanCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * true if requests for this plan are cached per entity: a cacheable, batchable
+     * JDBC namespace whose only argument is its single primary key column.
+     */
+    public boolean supports(QueryPlan plan) {
+        Namespace ns = plan.getNamespace();
+        List<String> pk = ns.getPrimaryKey();
+        return ns.isCacheable()
+                && !plan.isView()
+                && plan.isBatchable()
+                && plan.getPlugin() instanceof JdbcDataSourcePlugin
+                && pk != null && pk.size() == 1
+                && plan.getArgumentNames().equals(pk);
+    }
+
+    /**
+     * Returns the rows for one request, loading its key on a miss (single-flight,
+     * with the namespace's stale-while-revalidate and refresh-ahead policy).
+     * Cached rows lacking some requested fields are widened under the same
+     * single-flight; loads and refreshes keep every field already cached.
+     */
+    public List<Map<String, Object>> get(QueryPlan plan, QueryRequest req, Function<String, Schema> schemaLoader) {
+        String key = entityKey(plan, req);
+        CachePolicy policy = CachePolicy.of(plan.getNamespace());
+        List<Map<String, Object>> rows = cacheService.getOrLoad(key, policy,
+                cached -> covers(RowSet.copyOf(cached), plan),
+                current -> fetch(plan, req, fieldsToFetch(plan, current), schemaLoader),
+                loaded -> CacheTags.of(plan, req.getArguments(), loaded));
+        return project(RowSet.copyOf(rows), plan);
+    }
+
+    /**
+     * Returns the rows for each request. Keys cached with every requested field are
+     * answered from the cache, stale ones while they are refreshed in the background;
+     * the rest are fetched in one batched query per distinct field set (usually
+     * one). Keys another request is already loading wait for that load.
+     */
+    public List<List<Map<String, Object>>> getAll(QueryPlan plan, List<QueryRequest> reqs,
+                                                  Function<String, Schema> schemaLoader) {
+        Map<String, QueryRequest> byKey = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>(reqs.size());
+        for (QueryRequest req : reqs) {
+            String key = entityKey(plan, req);
+            byKey.putIfAbsent(key, req);
+            keys.add(key);
+        }
+        List<List<Map<String, Object>>> rows = cacheService.getOrLoadAll(keys, CachePolicy.of(plan.getNamespace()),
+                cached -> covers(RowSet.copyOf(cached), plan),
+                (key, current) -> fetch(plan, byKey.get(key), fieldsToFetch(plan, current), schemaLoader),
+                missed -> fetchAll(plan, byKey, missed, schemaLoader),
+                (key, loaded) -> CacheTags.of(plan, byKey.get(key).getArguments(), loaded));
+
+        List<List<Map<String, Object>>> results = new ArrayList<>(rows.size());
+        for (List<Map<String, Object>> r : rows) {
+            results.add(project(RowSet.copyOf(r), plan));
+        }
+        return results;
+    }
+
+    /** Fetches the missed keys, given their current rows or null, batched by the fields to fetch. */
+    private Map<String, RowSet> fetchAll(QueryPlan plan, Map<String, QueryRequest> byKey,
+                                         Map<String, List<Map<String, Object>>> missed,
+                                         Function<String, Schema> schemaLoader) {
+        Map<List<String>, List<String>> groups = new LinkedHashMap<>();
+        missed.forEach((key, current) ->
+                groups.computeIfAbsent(fieldsToFetch(plan, current), f -> new ArrayList<>()).add(key));
+
+        Map<String, RowSet> fetched = new HashMap<>();
+        groups.forEach((fields, keys) -> {
+            List<QueryRequest> batch = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                batch.add(withFields(byKey.get(key), fields));
+            }
+            QueryPlan fetchPlan = planFor(plan, batch.get(0), fields, schemaLoader);
+            logger.debug("Fetching {} uncached key(s) of {} with fields {}", keys.size(), plan.getNamespaceName(), fields);
+            List<List<Map<String, Object>>> loaded = fetchPlan.getPlugin().executeBatch(fetchPlan, batch, 1);
+            for (int j = 0; j < keys.size(); j++) {
+                fetched.put(keys.get(j), cachedRows(toRowSet(loaded.get(j), fetchPlan)));
+            }
+        });
+        return fetched;
+    }
+
+    private RowSet fetch(QueryPlan plan, QueryRequest req, List<String> fields, Function<String, Schema> schemaLoader) {
+        QueryRequest fetchReq = withFields(req, fields);
+        QueryPlan fetchPlan = planFor(plan, fetchReq, fields, schemaLoader);
+        return cachedRows(toRowSet(fetchPlan.getPlugin().execute(fetchPlan, fetchReq), fetchPlan));
+    }
+
+    /**
+     * Rows as stored in the cache, also holding their serialized JSON when
+     * cache.serialized-results.enabled; hits asking for exactly the cached
+     * fields get these rows back as they are and skip serialization.
+     */
+    private RowSet cachedRows(RowSet rows) {
+        return serializedResults ? rows.retainJson(objectMapper) : rows;
+    }
+
+    private QueryPlan planFor(QueryPlan plan, QueryRequest req, List<String> fields, Function<String, Schema> schemaLoader) {
+        return fields.equals(plan.getFieldNames()) ? plan : queryPlanCache.getPlan(req, schemaLoader);
+    }
+
+    /** Keys without rows are cached too, as an empty RowSet that still records the fetched fields. */
+    private static RowSet toRowSet(List<Map<String, Object>> rows, QueryPlan fetchPlan) {
+        return rows.isEmpty() ? new RowSet(new RowSet.Header(fetchPlan.getFieldNames())) : RowSet.copyOf(rows);
+    }
+
+    /**
+     * The plan's fields, followed by any other namespace fields already cached
+     * for the key.
+     */
+    private static List<String> fieldsToFetch(QueryPlan plan, List<Map<String, Object>> cached) {
+        List<String> fields = new ArrayList<>(plan.getFieldNames());
+        if (!(cached instanceof RowSet rows)) {
+            return fields;
+        }
+        RowSet.Header header = rows.getHeader();
+        for (Field f : plan.getNamespace().getFields()) {
+            if (header.indexOf(f.getName()) >= 0 && !fields.contains(f.getName())) {
+                fields.add(f.getName());
+            }
+        }
+        return fields;
+    }
+
+    private static boolean covers(RowSet rows, QueryPlan plan) {
+        RowSet.Header header = rows.getHeader();
+        for (String field : plan.getFieldNames()) {
+            if (header.indexOf(field) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The plan's columns of the cached rows, in the plan's order and under the source's column names. */
+    private static RowSet project(RowSet rows, QueryPlan plan) {
+        RowSet.Header header = rows.getHeader();
+        List<String> fields = plan.getFieldNames();
+        int[] positions = new int[fields.size()];
+        List<String> names = new ArrayList<>(fields.size());
+        boolean identity = positions.length == header.size();
+        for (int c = 0; c < positions.length; c++) {
+            positions[c] = header.indexOf(fields.get(c));
+            names.add(header.name(positions[c]));
+            identity &= positions[c] == c;
+        }
+        if (identity) {
+            return rows;
+        }
+        RowSet out = new RowSet(new RowSet.Header(names), new ArrayList<>(rows.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] v = rows.values(i);
+            Object[] p = new Object[positions.length];
+            for (int c = 0; c < positions.length; c++) {
+                p[c] = v[positions[c]];
+            }
+            out.addValues(p);
+        }
+        return out;
+    }
+
+    private static QueryRequest withFields(QueryRequest req, List<String> fields) {
+        QueryRequest out = new QueryRequest();
+        out.setSchema(req.getSchema());
+        out.setNamespace(req.getNamespace());
+        out.setArguments(req.getArguments());
+        out.setFields(fields);
+        return out;
+    }
+
+    private static String entityKey(QueryPlan plan, QueryRequest req) {
+        Object id = req.getArguments().get(plan.getArgumentNames().get(0));
+        return plan.getNamespace().getNamespace() + "::" + plan.getSchemaName() + ":" + id;
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.query.model.RowSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a {@link RowSet}: the column names once, then per
+ * row one tag byte and a fixed or length-prefixed payload per column. Common
+ * JDBC and JSON value types round-trip exactly; anything else (nested API
+ * objects, dates other than timestamps, ...) is stored as JSON and comes back
+ * as the equivalent maps, lists and scalars.
+ */
+public final class RowCodec {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte DECIMAL = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte TIMESTAMP = 8;
+    private static final byte FLOAT = 9;
+    private static final byte SHORT = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte OTHER_JSON = 12;
+
+    private RowCodec() {
+    }
+
+    public static byte[] encode(RowSet rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RowSet.Header header = rows.getHeader();
+            out.writeInt(header.size());
+            for (int c = 0; c < header.size(); c++) {
+                writeString(out, header.name(c));
+            }
+            out.writeInt(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                for (Object v : rows.values(i)) {
+                    writeValue(out, v);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a RowSet starting at the buffer's position, advancing it past the encoded rows.
+     */
+    public static RowSet decode(ByteBuffer in) {
+        int width = in.getInt();
+        List<String> columns = new ArrayList<>(width);
+        for (int c = 0; c < width; c++) {
+            columns.add(readString(in));
+        }
+        int count = in.getInt();
+        RowSet rows = new RowSet(new RowSet.Header(columns), new ArrayList<>(count));
+        for (int i = 0; i < count; i++) {
+            Object[] v = new Object[width];
+            for (int c = 0; c < width; c++) {
+                v[c] = readValue(in);
+            }
+            rows.addValues(v);
+        }
+        return rows;
+    }
+
+    private static void writeValue(DataOutputStream out, Object v) throws IOException {
+        if (v == null) {
+            out.writeByte(NULL);
+        } else if (v instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (v instanceof Integer n) {
+            out.writeByte(INT);
+            out.writeInt(n);
+        } else if (v instanceof Long n) {
+            out.writeByte(LONG);
+            out.writeLong(n);
+        } else if (v instanceof Double n) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(n);
+        } else if (v instanceof BigDecimal n) {
+            out.writeByte(DECIMAL);
+            out.writeInt(n.scale());
+            writeBytes(out, n.unscaledValue().toByteArray());
+        } else if (v instanceof Boolean b) {
+            out.writeByte(b ? TRUE : FALSE);
+        } else if (v instanceof Timestamp t) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(t.getTime());
+            out.writeInt(t.getNanos());
+        } else if (v instanceof Float n) {
+            out.writeByte(FLOAT);
+            out.writeFloat(n);
+        } else if (v instanceof Short n) {
+            out.writeByte(SHORT);
+            out.writeShort(n);
+        } else if (v instanceof BigInteger n) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, n.toByteArray());
+        } else {
+            out.writeByte(OTHER_JSON);
+            writeBytes(out, JSON.writeValueAsBytes(v));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case DECIMAL: {
+                int scale = in.getInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case TIMESTAMP: {
+                Timestamp t = new Timestamp(in.getLong());
+                t.setNanos(in.getInt());
+                return t;
+            }
+            case FLOAT:
+                return in.getFloat();
+            case SHORT:
+                return in.getShort();
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case OTHER_JSON:
+                try {
+                    return JSON.readValue(readBytes(in), Object.class);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] b = new byte[in.getInt()];
+        in.get(b);
+        return b;
+    }
+}
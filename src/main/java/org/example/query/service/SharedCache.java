@@ -0,0 +1,38 @@
+package org.example.query.service;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cache tier shared by every instance of the service, behind each instance's
+ * own {@link CacheService} (which then acts as a near cache), together with a
+ * broadcast channel used to tell the other instances which keys to drop.
+ *
+ * Values are opaque, self-describing byte arrays produced by CacheService;
+ * invalidation messages are opaque too and are delivered to every subscriber,
+ * including the publishing instance, which ignores its own messages.
+ * A Redis implementation would map these onto GET, SET PX, DEL, a set per tag
+ * and pub/sub; {@link LoopbackSharedCache} is an in-process reference one.
+ */
+public interface SharedCache {
+
+    /** Returns the value stored under key, or null if absent or expired. */
+    byte[] get(String key);
+
+    /** Stores value under key for ttlMillis, indexed under the given tags. */
+    void put(String key, byte[] value, long ttlMillis, Set<String> tags);
+
+    void remove(Collection<String> keys);
+
+    /** Removes every value stored with the tag and returns their keys. */
+    Set<String> removeTagged(String tag);
+
+    /** Removes every value. */
+    void clear();
+
+    /** Sends an invalidation message to every subscriber. */
+    void publish(byte[] message);
+
+    void subscribe(Consumer<byte[]> listener);
+}
@@ -1,19 +1,30 @@
 package org.example.query.service;
 
+import org.example.query.model.Row;
+import org.example.query.model.RowSet;
 import org.example.schema.model.Field;
 import org.example.schema.model.Namespace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -44,6 +55,14 @@ public class SqlGenerator {
     }
 
     public String generateSql(Namespace namespace, List<String> fields, Map<String, Object> arguments) {
+        return generateSql(namespace, fields, arguments != null ? arguments.keySet() : null);
+    }
+
+    /**
+     * Builds the SELECT for the given fields with one equality predicate per argument name,
+     * in iteration order of {@code argumentNames}.
+     */
+    public String generateSql(Namespace namespace, List<String> fields, Collection<String> argumentNames) {
         StringBuilder sql = new StringBuilder();
         sql.append("SELECT ");
         
@@ -54,11 +73,11 @@ public class SqlGenerator {
         sql.append(" FROM ").append(namespace.getNamespace());
         
         // Add where clause if arguments exist
-        if (arguments != null && !arguments.isEmpty()) {
+        if (argumentNames != null && !argumentNames.isEmpty()) {
             sql.append(" WHERE ");
             
-            String whereClause = arguments.entrySet().stream()
-                .map(entry -> entry.getKey() + " = ?")
+            String whereClause = argumentNames.stream()
+                .map(name -> name + " = ?")
                 .collect(Collectors.joining(" AND "));
                 
             sql.append(whereClause);
@@ -67,6 +86,87 @@ public class SqlGenerator {
         return sql.toString();
     }
     
+    /**
+     * Builds a SELECT that fetches rows for many key values at once
+     * ({@code keyColumn = ANY(?)}). The key column is always selected so rows
+     * can be demultiplexed; see {@link #executeBatch}.
+     */
+    public String generateBatchSql(Namespace namespace, List<String> fields, String keyColumn) {
+        List<String> select = new ArrayList<>(fields);
+        if (!select.contains(keyColumn)) {
+            select.add(keyColumn);
+        }
+        return "SELECT " + String.join(", ", select)
+                + " FROM " + namespace.getNamespace()
+                + " WHERE " + keyColumn + " = ANY(?)";
+    }
+
+    /**
+     * Builds one SELECT that joins a view's base namespace with co-located join namespaces.
+     * The base table is aliased {@code t0} and its columns keep their names; join {@code i}
+     * is aliased {@code t<i+1>} and its columns are returned as {@link #joinColumnAlias}.
+     * Parameters are bound join by join (each join's argument predicates sit in its ON
+     * clause) followed by the base key.
+     */
+    public String generateJoinSql(Namespace base, List<String> baseColumns, String keyColumn, List<JoinClause> joins) {
+        List<String> select = new ArrayList<>();
+        baseColumns.forEach(c -> select.add("t0." + c));
+        for (int i = 0; i < joins.size(); i++) {
+            String alias = "t" + (i + 1);
+            for (String c : joins.get(i).columns) {
+                select.add(alias + "." + c + " AS " + joinColumnAlias(i, c));
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", select))
+                .append(" FROM ").append(base.getNamespace()).append(" t0");
+        for (int i = 0; i < joins.size(); i++) {
+            JoinClause join = joins.get(i);
+            String alias = "t" + (i + 1);
+            sql.append(' ').append(join.type).append(" JOIN ").append(join.namespace.getNamespace()).append(' ').append(alias)
+                    .append(" ON ").append(alias).append('.').append(join.joinKey).append(" = t0.").append(join.baseKey);
+            for (String arg : join.argumentNames) {
+                sql.append(" AND ").append(alias).append('.').append(arg).append(" = ?");
+            }
+        }
+        sql.append(" WHERE t0.").append(keyColumn).append(" = ?");
+        return sql.toString();
+    }
+
+    /**
+     * Result column name of a join column selected by {@link #generateJoinSql}.
+     */
+    public static String joinColumnAlias(int join, String column) {
+        return "j" + (join + 1) + "_" + column;
+    }
+
+    /**
+     * One join pushed into a view's base query.
+     */
+    public static class JoinClause {
+        private final Namespace namespace;
+        private final String type;
+        private final String baseKey;
+        private final String joinKey;
+        private final List<String> columns;
+        private final List<String> argumentNames;
+
+        /**
+         * @param type          SQL join type, "INNER" or "LEFT"
+         * @param argumentNames join columns compared with the view's arguments, in binding order
+         */
+        public JoinClause(Namespace namespace, String type, String baseKey, String joinKey,
+                          List<String> columns, List<String> argumentNames) {
+            this.namespace = namespace;
+            this.type = type;
+            this.baseKey = baseKey;
+            this.joinKey = joinKey;
+            this.columns = List.copyOf(columns);
+            this.argumentNames = List.copyOf(argumentNames);
+        }
+    }
+
     public List<Map<String, Object>> executeSql(String dbName, String sql, List<String> fields) {
         return executeSql(dbName, sql, null, fields, null);
     }
@@ -78,49 +178,61 @@ public class SqlGenerator {
     public List<Map<String, Object>> executeSql(String dbName, String sql, Map<String, Object> arguments, List<String> fields, Namespace namespace) {
         String lookupKey = dbName != null ? dbName.toLowerCase() : "default";
         
-        logger.info("Looking up database connection for key: '{}', available keys: {}", 
-                lookupKey, String.join(", ", jdbcTemplates.keySet()));
+        // Convert parameter values to correct types based on field definitions
+        List<Object> paramValues = new ArrayList<>();
+        if (arguments != null && !arguments.isEmpty()) {
+            for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+                String paramName = entry.getKey();
+                Object rawValue = entry.getValue();
+                
+                // Find field definition to get the type
+                Field field = findFieldByNameOrAlias(namespace, paramName);
+                if (field != null) {
+                    Object convertedValue = convertToFieldType(rawValue, field.getType());
+                    paramValues.add(convertedValue);
+                    logger.debug("Converted parameter '{}' from {} to {} ({}) - Value: {}->{}",
+                            paramName, rawValue.getClass().getSimpleName(), 
+                            convertedValue.getClass().getSimpleName(), field.getType(),
+                            rawValue, convertedValue);
+                } else {
+                    // If field not found, use as-is
+                    paramValues.add(rawValue);
+                    logger.debug("Using raw parameter value for '{}': {}", paramName, rawValue);
+                }
+            }
+        }
         
-        JdbcTemplate jdbcTemplate;
-        if (jdbcTemplates.containsKey(lookupKey)) {
-            jdbcTemplate = jdbcTemplates.get(lookupKey);
-        } else {
-            logger.warn("No database connection found for '{}'. Using default datasource.", lookupKey);
-            jdbcTemplate = new JdbcTemplate(defaultDataSource);
+        return executePrepared(lookupKey, sql, paramValues.toArray(), fields, namespace);
+    }
+
+    /**
+     * Converts argument values to their field types. {@code argumentFields} is parallel to
+     * {@code values}; a null entry leaves the value as-is.
+     */
+    public Object[] bindParameters(List<Field> argumentFields, Object[] values) {
+        Object[] params = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Field field = argumentFields.get(i);
+            params[i] = field != null ? convertToFieldType(values[i], field.getType()) : values[i];
         }
+        return params;
+    }
+
+    /**
+     * Executes SQL whose parameters are already bound and typed.
+     * {@code dbKey} must be the lower-cased database name.
+     */
+    public List<Map<String, Object>> executePrepared(String dbKey, String sql, Object[] params, List<String> fields, Namespace namespace) {
+        JdbcTemplate jdbcTemplate = resolveTemplate(dbKey);
         
-        logger.info("Executing SQL query on database {}: {}", dbName, sql);
+        logger.info("Executing SQL query on database {}: {}", dbKey, sql);
         logger.debug("Query fields: {}", fields);
         
         try {
-            if (arguments != null && !arguments.isEmpty()) {
-                // Convert parameter values to correct types based on field definitions
-                List<Object> paramValues = new ArrayList<>();
+            if (params.length > 0) {
+                logger.debug("Executing with parameters: {}", Arrays.asList(params));
                 
-                for (Map.Entry<String, Object> entry : arguments.entrySet()) {
-                    String paramName = entry.getKey();
-                    Object rawValue = entry.getValue();
-                    
-                    // Find field definition to get the type
-                    Field field = findFieldByNameOrAlias(namespace, paramName);
-                    if (field != null) {
-                        Object convertedValue = convertToFieldType(rawValue, field.getType());
-                        paramValues.add(convertedValue);
-                        logger.debug("Converted parameter '{}' from {} to {} ({}) - Value: {}->{}",
-                                paramName, rawValue.getClass().getSimpleName(), 
-                                convertedValue.getClass().getSimpleName(), field.getType(),
-                                rawValue, convertedValue);
-                    } else {
-                        // If field not found, use as-is
-                        paramValues.add(rawValue);
-                        logger.debug("Using raw parameter value for '{}': {}", paramName, rawValue);
-                    }
-                }
-                
-                Object[] params = paramValues.toArray();
-                logger.debug("Executing with parameters: {}", paramValues);
-                
-                List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, params);
+                List<Map<String, Object>> results = jdbcTemplate.query(sql, SqlGenerator::readRows, params);
                 logger.debug("Query returned {} results", results.size());
                 
                 // Debug log the first result if available
@@ -130,90 +242,182 @@ public class SqlGenerator {
                 
                 return results;
             } else {
-                List<Map<String, Object>> results = jdbcTemplate.queryForList(sql);
+                List<Map<String, Object>> results = jdbcTemplate.query(sql, SqlGenerator::readRows);
                 logger.debug("Query returned {} results", results.size());
                 return results;
             }
         } catch (Exception e) {
             logger.error("Error executing SQL '{}': {}", sql, e.getMessage(), e);
-            
-            // Generate more meaningful mock data
-            List<Map<String, Object>> mockData = new ArrayList<>();
-            Map<String, Object> row = new HashMap<>();
-            
-            if (namespace != null) {
-                for (String fieldName : fields) {
-                    // Find the field definition by exact name
-                    Optional<Field> fieldOpt = namespace.getFields().stream()
-                        .filter(f -> f.getName().equals(fieldName))
-                        .findFirst();
-                    
-                    if (fieldOpt.isPresent()) {
-                        Field field = fieldOpt.get();
-                        // Generate realistic mock data based on field type
-                        generateTypedMockData(row, fieldName, field.getType());
-                    } else {
-                        // If field not found by exact name, use generic mock data
-                        logger.warn("Field {} not found in namespace for mock data generation", fieldName);
-                        row.put(fieldName, "mock_" + fieldName);
+            throw new RuntimeException("Error executing SQL on database " + dbKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Executes SQL whose parameters are already bound and typed, handing each row to
+     * {@code sink} as it is read instead of collecting them. Auto-commit is switched off
+     * for the duration so the PostgreSQL driver reads through a server-side cursor
+     * {@code fetchSize} rows at a time. Failures are rethrown as they are; rows read
+     * before one may already have been handed out.
+     *
+     * @return number of rows read
+     */
+    public long streamPrepared(String dbKey, String sql, Object[] params, int fetchSize, Consumer<Map<String, Object>> sink) {
+        JdbcTemplate jdbcTemplate = resolveTemplate(dbKey);
+        logger.info("Streaming SQL query on database {} (fetchSize={}): {}", dbKey, fetchSize, sql);
+
+        Long count = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                long rows = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    RowSet.Header header = headerOf(rs.getMetaData());
+                    while (rs.next()) {
+                        sink.accept(new Row(header, readValues(rs, header.size())));
+                        rows++;
                     }
                 }
-            } else {
-                // Simple mocks if namespace not available
-                for (String field : fields) {
-                    row.put(field, "mock_" + field);
+                return rows;
+            } finally {
+                // read-only: nothing to keep, just end the cursor's transaction
+                con.rollback();
+                con.setAutoCommit(autoCommit);
+            }
+        });
+        logger.debug("Streamed {} rows", count);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Executes SQL built by {@link #generateBatchSql} with the given (already typed) key values
+     * bound as one array parameter, and groups the rows by {@link #normalizeKey normalized} key.
+     * The key column is removed from the rows unless it is one of {@code fields}.
+     * Failures are rethrown, so that no key is answered (or cached) with rows it doesn't have.
+     */
+    public Map<Object, List<Map<String, Object>>> executeBatch(String dbKey, String sql, String keyColumn, String keyType,
+                                                              Object[] keys, List<String> fields, Namespace namespace) {
+        JdbcTemplate jdbcTemplate = resolveTemplate(dbKey);
+        boolean stripKey = !fields.contains(keyColumn);
+
+        logger.info("Executing batch SQL on database {} for {} key(s): {}", dbKey, keys.length, sql);
+
+        Map<Object, List<Map<String, Object>>> byKey = new HashMap<>();
+        try {
+            RowSet rows = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setArray(1, con.createArrayOf(sqlArrayType(keyType), keys));
+                return ps;
+            }, SqlGenerator::readRows);
+            logger.debug("Batch query returned {} results", rows.size());
+
+            RowSet.Header header = rows.getHeader();
+            int keyIndex = header.indexOf(keyColumn);
+            if (keyIndex < 0) {
+                throw new IllegalStateException("Batch query result has no key column " + keyColumn);
+            }
+            List<String> columns = new ArrayList<>();
+            for (int c = 0; c < header.size(); c++) {
+                if (!stripKey || c != keyIndex) {
+                    columns.add(header.name(c));
+                }
+            }
+            // every key's rows share one header
+            RowSet.Header outHeader = stripKey ? new RowSet.Header(columns) : header;
+            Map<Object, RowSet> groups = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] v = rows.values(i);
+                Object key = normalizeKey(v[keyIndex]);
+                if (stripKey) {
+                    Object[] stripped = new Object[v.length - 1];
+                    System.arraycopy(v, 0, stripped, 0, keyIndex);
+                    System.arraycopy(v, keyIndex + 1, stripped, keyIndex, v.length - keyIndex - 1);
+                    v = stripped;
                 }
+                groups.computeIfAbsent(key, k -> new RowSet(outHeader)).addValues(v);
             }
-            mockData.add(row);
-            return mockData;
+            byKey.putAll(groups);
+        } catch (Exception e) {
+            logger.error("Error executing batch SQL '{}': {}", sql, e.getMessage(), e);
+            throw new RuntimeException("Error executing batch SQL on database " + dbKey + ": " + e.getMessage(), e);
         }
+        return byKey;
     }
 
     /**
-     * Generate typed mock data based on field type
+     * Reads a whole result into a {@link RowSet}.
      */
-    private void generateTypedMockData(Map<String, Object> row, String fieldName, String fieldType) {
-        switch (fieldType.toLowerCase()) {
-            case "string":
-            case "text":
-                if (fieldName.toLowerCase().contains("email")) {
-                    row.put(fieldName, "user@example.com");
-                } else if (fieldName.toLowerCase().contains("name")) {
-                    row.put(fieldName, "John Doe");
-                } else if (fieldName.toLowerCase().contains("phone")) {
-                    row.put(fieldName, "555-123-4567");
-                } else {
-                    row.put(fieldName, "Sample " + fieldName);
-                }
-                break;
+    private static RowSet readRows(ResultSet rs) throws SQLException {
+        RowSet.Header header = headerOf(rs.getMetaData());
+        RowSet rows = new RowSet(header);
+        while (rs.next()) {
+            rows.addValues(readValues(rs, header.size()));
+        }
+        return rows;
+    }
+
+    private static RowSet.Header headerOf(ResultSetMetaData md) throws SQLException {
+        List<String> columns = new ArrayList<>(md.getColumnCount());
+        for (int c = 1; c <= md.getColumnCount(); c++) {
+            columns.add(JdbcUtils.lookupColumnName(md, c));
+        }
+        return new RowSet.Header(columns);
+    }
+
+    private static Object[] readValues(ResultSet rs, int width) throws SQLException {
+        Object[] v = new Object[width];
+        for (int c = 0; c < width; c++) {
+            v[c] = JdbcUtils.getResultSetValue(rs, c + 1);
+        }
+        return v;
+    }
+
+    /**
+     * Normalizes a key value so that a bound parameter and the value read back from the
+     * database compare equal regardless of the JDBC type (Integer vs Long vs BigDecimal vs String).
+     */
+    public static Object normalizeKey(Object value) {
+        if (value instanceof Number n) {
+            BigDecimal bd = new BigDecimal(n.toString()).stripTrailingZeros();
+            return bd.scale() <= 0 ? bd.toBigInteger().toString() : bd.toPlainString();
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Maps a schema field type to the SQL element type used for array parameters.
+     */
+    private String sqlArrayType(String fieldType) {
+        switch (fieldType == null ? "" : fieldType.toLowerCase()) {
             case "integer":
             case "int":
-                row.put(fieldName, 123);
-                break;
-            case "decimal":
+                return "integer";
+            case "long":
+                return "bigint";
             case "double":
             case "float":
-                if (fieldName.toLowerCase().contains("balance")) {
-                    row.put(fieldName, 1234.56);
-                } else {
-                    row.put(fieldName, 123.45);
-                }
-                break;
+                return "float8";
+            case "decimal":
+                return "numeric";
             case "boolean":
             case "bool":
-                row.put(fieldName, true);
-                break;
-            case "date":
-                row.put(fieldName, "2023-05-01");
-                break;
-            case "timestamp":
-            case "datetime":
-                row.put(fieldName, "2023-05-01T10:30:00");
-                break;
+                return "boolean";
             default:
-                row.put(fieldName, "mock_" + fieldName);
+                return "varchar";
+        }
+    }
+
+    private JdbcTemplate resolveTemplate(String lookupKey) {
+        JdbcTemplate jdbcTemplate = jdbcTemplates.get(lookupKey);
+        if (jdbcTemplate == null) {
+            logger.warn("No database connection found for '{}'. Using default datasource. Available keys: {}",
+                    lookupKey, String.join(", ", jdbcTemplates.keySet()));
+            jdbcTemplate = jdbcTemplates.get("default");
         }
-        logger.debug("Generated mock data for field {}: {}", fieldName, row.get(fieldName));
+        return jdbcTemplate;
     }
 
     /**
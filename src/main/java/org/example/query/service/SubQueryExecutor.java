@@ -0,0 +1,266 @@
+package org.example.query.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Execution layer for sub-queries fanned out by {@link QueryProcessor}.
+ * Runs either one virtual thread per sub-query ("virtual") or a bounded
+ * platform thread pool with a queue limit ("bounded"), and caps how many
+ * sub-queries of a single request may be in flight at once. In bounded mode,
+ * work that doesn't run on the pool (tasks forked by a running sub-query and
+ * asynchronous data-source calls, see {@link #limit}) is capped by the same
+ * pool-size and queue-capacity, through permits instead of threads.
+ */
+@Service
+public class SubQueryExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(SubQueryExecutor.class);
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // marks threads currently running a sub-query, so nested submissions can be detected
+    private final ThreadLocal<Boolean> insideSubQuery = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    @Value("${query.executor.mode:virtual}")
+    private String mode;
+
+    @Value("${query.executor.pool-size:32}")
+    private int poolSize;
+
+    @Value("${query.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${query.executor.max-concurrency-per-request:8}")
+    private int maxConcurrencyPerRequest;
+
+    private ExecutorService executor;
+    private ThreadPoolExecutor boundedPool;
+    private ExecutorService nestedExecutor;
+    // bounded mode: caps work running off the pool; null in virtual mode
+    private AsyncPermits permits;
+    private Timer queueWait;
+    private Counter saturated;
+
+    @Autowired
+    public SubQueryExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if ("bounded".equalsIgnoreCase(mode)) {
+            AtomicInteger threadIds = new AtomicInteger();
+            boundedPool = new ThreadPoolExecutor(
+                    poolSize, poolSize,
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "subquery-" + threadIds.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    (r, pool) -> {
+                        // after shutdown, fail the task's future rather than dropping it
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("Sub-query executor is shut down");
+                        }
+                        // queue is full: push back on the submitting thread instead of failing the request
+                        saturated.increment();
+                        r.run();
+                    });
+            executor = boundedPool;
+            // work forked by a running sub-query (e.g. view joins) must not queue behind its parent,
+            // so it runs on virtual threads, as many at once as the pool has threads
+            nestedExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("subquery-nested-", 0).factory());
+            permits = new AsyncPermits(poolSize);
+            Gauge.builder("query.executor.queued", this, e -> e.boundedPool.getQueue().size() + e.permits.waiting())
+                    .description("Sub-queries waiting for a pool thread or a permit")
+                    .register(meterRegistry);
+            Gauge.builder("query.executor.utilization", boundedPool,
+                            p -> (double) p.getActiveCount() / p.getMaximumPoolSize())
+                    .description("Fraction of pool threads busy with sub-queries")
+                    .register(meterRegistry);
+        } else {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("subquery-", 0).factory());
+        }
+
+        Gauge.builder("query.executor.active", inFlight, AtomicInteger::get)
+                .description("Sub-queries currently executing")
+                .register(meterRegistry);
+        queueWait = Timer.builder("query.executor.queue.wait")
+                .description("Time a sub-query waited before starting to execute")
+                .register(meterRegistry);
+        saturated = Counter.builder("query.executor.saturated")
+                .description("Sub-queries run on the caller, or rejected, because the queue was full")
+                .register(meterRegistry);
+
+        logger.info("Sub-query executor mode={} poolSize={} queueCapacity={} maxConcurrencyPerRequest={}",
+                boundedPool != null ? "bounded" : "virtual", poolSize, queueCapacity, maxConcurrencyPerRequest);
+    }
+
+    /**
+     * Runs a single task on the sub-query executor. In bounded mode, tasks
+     * submitted from inside a running sub-query go to a virtual thread instead
+     * of the pool, so a parent never waits on children queued behind it.
+     * Once the executor is shut down, the returned future fails with a
+     * {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (nestedExecutor != null && insideSubQuery.get()) {
+            // run() does the timing and counting once it has a permit
+            return withPermit(() -> run(task, nestedExecutor), false);
+        }
+        return run(task, executor);
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> task, ExecutorService target) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                inFlight.incrementAndGet();
+                boolean outer = !insideSubQuery.get();
+                insideSubQuery.set(Boolean.TRUE);
+                try {
+                    return task.get();
+                } finally {
+                    if (outer) {
+                        insideSubQuery.remove();
+                    }
+                    inFlight.decrementAndGet();
+                }
+            }, target);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Starts an asynchronous stage, such as a data-source call, under the
+     * executor's limits. In bounded mode the stage is started only once one of
+     * pool-size permits is free; while queue-capacity stages are already
+     * waiting, the returned future fails at once with a
+     * {@link RejectedExecutionException}. In virtual mode the stage is started
+     * right away.
+     */
+    public <T> CompletableFuture<T> limit(Supplier<? extends CompletionStage<T>> stage) {
+        return permits != null ? withPermit(stage, true) : start(stage);
+    }
+
+    private <T> CompletableFuture<T> withPermit(Supplier<? extends CompletionStage<T>> stage, boolean measure) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<Void> turn = permits.acquire(queueCapacity);
+        if (turn == null) {
+            // queue is full: callers may be completion callbacks, which must not block
+            saturated.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Sub-query queue is full (" + queueCapacity + " waiting)"));
+        }
+        return turn.thenCompose(v -> {
+            if (measure) {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                inFlight.incrementAndGet();
+            }
+            return start(stage).whenComplete((value, err) -> {
+                if (measure) {
+                    inFlight.decrementAndGet();
+                }
+                permits.release();
+            });
+        });
+    }
+
+    private static <T> CompletableFuture<T> start(Supplier<? extends CompletionStage<T>> stage) {
+        try {
+            return stage.get().toCompletableFuture();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs all tasks of one request, never more than
+     * {@code query.executor.max-concurrency-per-request} at a time.
+     * The returned futures are in the same order as the tasks.
+     */
+    public <T> List<CompletableFuture<T>> submitAll(List<? extends Supplier<T>> tasks) {
+        List<Supplier<CompletionStage<T>>> stages = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            stages.add(() -> submit(task));
+        }
+        return composeAll(stages);
+    }
+
+    /**
+     * Starts the asynchronous stages of one request, never more than
+     * {@code query.executor.max-concurrency-per-request} in flight at once. A
+     * stage is started by calling its supplier, on whichever thread completed the
+     * previous one, and holds no thread of this executor while it waits.
+     * The returned futures are in the same order as the stages.
+     */
+    public <T> List<CompletableFuture<T>> composeAll(List<? extends Supplier<? extends CompletionStage<T>>> stages) {
+        List<CompletableFuture<T>> results = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        int initial = Math.min(Math.max(1, maxConcurrencyPerRequest), stages.size());
+        for (int i = 0; i < initial; i++) {
+            launchNext(stages, results, next);
+        }
+        return results;
+    }
+
+    private <T> void launchNext(List<? extends Supplier<? extends CompletionStage<T>>> stages,
+                                List<CompletableFuture<T>> results,
+                                AtomicInteger next) {
+        int i = next.getAndIncrement();
+        if (i >= stages.size()) {
+            return;
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = stages.get(i).get();
+        } catch (RuntimeException e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((value, err) -> {
+            if (err != null) {
+                results.get(i).completeExceptionally(err);
+            } else {
+                results.get(i).complete(value);
+            }
+            launchNext(stages, results, next);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        if (nestedExecutor != null) {
+            nestedExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.query.service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Secondary index of cache keys by tag, kept in both directions so that both
+ * tagging a key and finding the keys of a tag cost O(tags of the key) and
+ * O(keys of the tag) respectively.
+ */
+final class TagIndex {
+    private final ConcurrentMap<String, Set<String>> keysByTag = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> tagsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the tags of key, replacing any it had before.
+     */
+    void tag(String key, Set<String> tags) {
+        Set<String> previous = tags.isEmpty() ? tagsByKey.remove(key) : tagsByKey.put(key, tags);
+        if (previous != null) {
+            for (String tag : previous) {
+                if (!tags.contains(tag)) {
+                    removeFromTag(tag, key);
+                }
+            }
+        }
+        for (String tag : tags) {
+            keysByTag.compute(tag, (t, keys) -> {
+                Set<String> out = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                out.add(key);
+                return out;
+            });
+        }
+    }
+
+    void untag(String key) {
+        Set<String> tags = tagsByKey.remove(key);
+        if (tags != null) {
+            tags.forEach(tag -> removeFromTag(tag, key));
+        }
+    }
+
+    /**
+     * Untags key only if it still carries exactly this tag set (by identity),
+     * i.e. it hasn't been re-tagged by a newer entry since.
+     */
+    void untag(String key, Set<String> expected) {
+        boolean[] removed = new boolean[1];
+        tagsByKey.computeIfPresent(key, (k, tags) -> {
+            removed[0] = tags == expected;
+            return removed[0] ? null : tags;
+        });
+        if (removed[0]) {
+            expected.forEach(tag -> removeFromTag(tag, key));
+        }
+    }
+
+    private void removeFromTag(String tag, String key) {
+        keysByTag.computeIfPresent(tag, (t, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    Set<String> keysFor(String tag) {
+        Set<String> keys = keysByTag.get(tag);
+        return keys != null ? new HashSet<>(keys) : Collections.emptySet();
+    }
+
+    /** Every key that carries at least one tag. */
+    Set<String> keys() {
+        return new HashSet<>(tagsByKey.keySet());
+    }
+
+    /** Number of keys per tag, sorted by tag. */
+    Map<String, Integer> counts() {
+        Map<String, Integer> out = new TreeMap<>();
+        keysByTag.forEach((tag, keys) -> out.put(tag, keys.size()));
+        return out;
+    }
+
+    void clear() {
+        keysByTag.clear();
+        tagsByKey.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.query.service;
+
+import org.example.query.join.HashJoin;
+import org.example.query.model.RowSet;
+import org.example.schema.model.DataSource;
+import org.example.schema.model.Field;
+import org.example.schema.model.Namespace;
+
+import java.util.List;
+
+/**
+ * Compiled execution plan of a view schema: the base SQL (including any joins
+ * pushed down to the same database) and the columns it selects, the computed base fields, a compiled {@link QueryPlan} per join, and
+ * the {@link HashJoin} that merges everything into the view's output columns.
+ */
+public class ViewPlan {
+    private final String keyName;
+    private final Namespace baseNamespace;
+    private final String baseDbKey;
+    private final String baseSql;
+    private final List<String> baseFields;
+    private final Field baseKeyField;
+    private final List<Field> computedFields;
+    private final List<QueryPlan> pushedJoins;
+    private final List<ViewJoin> joins;
+    private final List<String> outputColumns;
+    private final RowSet.Header outputHeader;
+    private final HashJoin hashJoin;
+
+    public ViewPlan(String keyName,
+                    Namespace baseNamespace,
+                    String baseDbKey,
+                    String baseSql,
+                    List<String> baseFields,
+                    Field baseKeyField,
+                    List<Field> computedFields,
+                    List<QueryPlan> pushedJoins,
+                    List<ViewJoin> joins,
+                    List<String> outputColumns,
+                    HashJoin hashJoin) {
+        this.keyName = keyName;
+        this.baseNamespace = baseNamespace;
+        this.baseDbKey = baseDbKey;
+        this.baseSql = baseSql;
+        this.baseFields = List.copyOf(baseFields);
+        this.baseKeyField = baseKeyField;
+        this.computedFields = List.copyOf(computedFields);
+        this.pushedJoins = List.copyOf(pushedJoins);
+        this.joins = List.copyOf(joins);
+        this.outputColumns = List.copyOf(outputColumns);
+        this.outputHeader = new RowSet.Header(outputColumns);
+        this.hashJoin = hashJoin;
+    }
+
+    /** The view's global key; its argument value selects the base rows. */
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public Namespace getBaseNamespace() {
+        return baseNamespace;
+    }
+
+    public String getBaseDbKey() {
+        return baseDbKey;
+    }
+
+    public String getBaseSql() {
+        return baseSql;
+    }
+
+    /** Columns selected from the base namespace (view fields, transformer inputs and in-memory join keys). */
+    public List<String> getBaseFields() {
+        return baseFields;
+    }
+
+    /** Field definition of the key column, used to type its argument (may be null). */
+    public Field getBaseKeyField() {
+        return baseKeyField;
+    }
+
+    /** Computed base fields (concat transformers) evaluated in-memory on each base row. */
+    public List<Field> getComputedFields() {
+        return computedFields;
+    }
+
+    /**
+     * Plans of the joins executed inside the base SQL, in the order their
+     * argument parameters are bound (before the base key).
+     */
+    public List<QueryPlan> getPushedJoins() {
+        return pushedJoins;
+    }
+
+    /** Joins fetched separately and hash joined in memory. */
+    public List<ViewJoin> getJoins() {
+        return joins;
+    }
+
+    /** View field names ("as"), in output order. */
+    public List<String> getOutputColumns() {
+        return outputColumns;
+    }
+
+    /** Header shared by every result row of the view. */
+    public RowSet.Header getOutputHeader() {
+        return outputHeader;
+    }
+
+    public HashJoin getHashJoin() {
+        return hashJoin;
+    }
+
+    /**
+     * One join of the view together with the compiled plan used to fetch its rows.
+     */
+    public static class ViewJoin {
+        private final DataSource.JoinDefinition definition;
+        private final QueryPlan plan;
+
+        public ViewJoin(DataSource.JoinDefinition definition, QueryPlan plan) {
+            this.definition = definition;
+            this.plan = plan;
+        }
+
+        public DataSource.JoinDefinition getDefinition() {
+            return definition;
+        }
+
+        public QueryPlan getPlan() {
+            return plan;
+        }
+    }
+}
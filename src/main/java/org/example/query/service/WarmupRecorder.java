@@ -0,0 +1,116 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.example.query.model.JsonQuery;
+import org.example.query.model.QueryRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the most recently used cacheable requests, by cache key, and writes
+ * them to cache.warmup.recording-file at shutdown so {@link CacheWarmer} can
+ * replay them at the next startup. The file uses the /api/query request format.
+ */
+@Component
+public class WarmupRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRecorder.class);
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${cache.warmup.recording-file:}")
+    private String recordingFile;
+
+    @Value("${cache.warmup.recording-max-keys:1000}")
+    private int maxKeys;
+
+    // access-ordered, so the least recently used request is dropped first
+    private final Map<String, QueryRequest> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryRequest> eldest) {
+            return size() > maxKeys;
+        }
+    };
+
+    @Autowired
+    public WarmupRecorder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return !recordingFile.isBlank();
+    }
+
+    public void record(String cacheKey, QueryRequest req) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (recent) {
+            recent.put(cacheKey, req);
+        }
+    }
+
+    /**
+     * Requests recorded by the previous run, most recently used first; empty
+     * if recording is off or there is no recording yet.
+     */
+    public List<QueryRequest> load() {
+        if (!isEnabled()) {
+            return Collections.emptyList();
+        }
+        return readRequests(objectMapper, Paths.get(recordingFile));
+    }
+
+    @PreDestroy
+    public void save() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<QueryRequest> requests;
+        synchronized (recent) {
+            requests = new ArrayList<>(recent.values());
+        }
+        Collections.reverse(requests);
+        JsonQuery recording = new JsonQuery();
+        recording.setQueries(requests);
+        Path file = Paths.get(recordingFile);
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), recording);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Recorded {} cache warm-up request(s) to {}", requests.size(), file);
+        } catch (IOException e) {
+            logger.warn("Failed to write cache warm-up recording {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** Reads a file of requests in the /api/query format; empty if it does not exist. */
+    static List<QueryRequest> readRequests(ObjectMapper objectMapper, Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyList();
+        }
+        try {
+            JsonQuery query = objectMapper.readValue(file.toFile(), JsonQuery.class);
+            return query.getQueries() != null ? query.getQueries() : Collections.emptyList();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache warm-up file {}: {}", file, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
@@ -14,6 +14,7 @@ public class DataSource {
     // API-specific
     private String apiUrl;
     private String httpMethod;
+    private String batchApiUrl;  // optional; looks many keys up at once, see ApiDataSourcePlugin.executeBatch
 
     // DB-specific
     private String dbName;
@@ -42,6 +43,9 @@ public class DataSource {
     public String getHttpMethod() { return httpMethod; }
     public void setHttpMethod(String httpMethod) { this.httpMethod = httpMethod; }
 
+    public String getBatchApiUrl() { return batchApiUrl; }
+    public void setBatchApiUrl(String batchApiUrl) { this.batchApiUrl = batchApiUrl; }
+
     public String getDbName() { return dbName; }
     public void setDbName(String dbName) { this.dbName = dbName; }
 
@@ -93,6 +97,7 @@ public class DataSource {
         private String namespace;
         private String key;
         private String type;
+        private Long timeoutMs;   // optional per-join deadline; overrides query.view.join-timeout-ms
 
         public String getSchema() { return schema; }
         public void setSchema(String schema) { this.schema = schema; }
@@ -105,5 +110,8 @@ public class DataSource {
 
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
+
+        public Long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
     }
 }
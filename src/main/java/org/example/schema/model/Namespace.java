@@ -14,6 +14,8 @@ public class Namespace {
     private boolean cacheable;
     private long    cacheTTL;          // in seconds
     private String  cacheKeyPattern;   // e.g. "customers::{customer_id}"
+    private long    staleWhileRevalidate;   // seconds a value may be served past its TTL while it reloads
+    private double  refreshAheadFraction;   // reload in the background once this fraction of the TTL has passed (0 = off)
     /** true if this namespace should be cached */
     public boolean isCacheable() {
         return cacheable;
@@ -35,6 +37,22 @@ public class Namespace {
     public void setCacheTTL(long cacheTTL) {
         this.cacheTTL = cacheTTL;
     }
+
+    /** Grace period in seconds during which an expired value is still served while one reload runs */
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+    public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /** Fraction of the TTL (0..1) after which a read triggers a background reload; 0 disables it */
+    public double getRefreshAheadFraction() {
+        return refreshAheadFraction;
+    }
+    public void setRefreshAheadFraction(double refreshAheadFraction) {
+        this.refreshAheadFraction = refreshAheadFraction;
+    }
     public String getNamespace() {
         return namespace;
     }
@@ -17,6 +17,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +30,7 @@ public class SchemaReader {
     private final ObjectMapper objectMapper;
     private final ResourceLoader resourceLoader;
     private final Map<String, Schema> schemaCache = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> reloadListeners = new CopyOnWriteArrayList<>();
 
     @Value("${schema.directory}")
     private String schemaDirectory;
@@ -43,6 +46,24 @@ public class SchemaReader {
                 .collect(Collectors.toMap(Schema::getSchemaName, s -> s, (a, b) -> a))
                 .values());
     }
+    /**
+     * Registers a callback invoked with the schema name whenever an already
+     * cached schema is reloaded or dropped from the cache.
+     */
+    public void addReloadListener(Consumer<String> listener) {
+        reloadListeners.add(listener);
+    }
+
+    private void fireReloaded(String name) {
+        for (Consumer<String> listener : reloadListeners) {
+            try {
+                listener.accept(name);
+            } catch (RuntimeException e) {
+                logger.warn("Schema reload listener failed for {}", name, e);
+            }
+        }
+    }
+
     @PostConstruct
     public void init() {
         Path dir = Paths.get(schemaDirectory);
@@ -77,15 +98,21 @@ public class SchemaReader {
                 String content = Files.readString(path);
                 Schema schema = objectMapper.readValue(content, Schema.class);
                 schemaCache.put(schemaPath, schema);
-                schemaCache.put(name, schema);
+                Schema previous = schemaCache.put(name, schema);
                 logger.info("Loaded schema from file: {}", name);
+                if (previous != null) {
+                    fireReloaded(name);
+                }
                 return schema;
             } else {
                 Resource res = resourceLoader.getResource("classpath:schemas/" + path.getFileName());
                 if (res.exists()) {
                     Schema schema = loadSchemaFromResource(res);
-                    schemaCache.put(name, schema);
+                    Schema previous = schemaCache.put(name, schema);
                     logger.info("Loaded schema from classpath: {}", name);
+                    if (previous != null) {
+                        fireReloaded(name);
+                    }
                     return schema;
                 }
                 throw new IOException("Schema not found at " + schemaPath);
@@ -103,8 +130,11 @@ public class SchemaReader {
         String name = resource.getFilename().replaceFirst("\\.json$", "");
         try {
             Schema schema = loadSchemaFromResource(resource);
-            schemaCache.put(name, schema);
+            Schema previous = schemaCache.put(name, schema);
             logger.info("Loaded schema from resource: {}", name);
+            if (previous != null) {
+                fireReloaded(name);
+            }
             return schema;
         } catch (IOException e) {
             logger.error("Error reading schema resource {}", name, e);
@@ -151,7 +181,9 @@ public class SchemaReader {
      * Clears the schema cache.
      */
     public void clearCache() {
+        Set<String> names = getCachedSchemaNames();
         schemaCache.clear();
         logger.info("Cleared schema cache");
+        names.forEach(this::fireReloaded);
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package org.example.query.datasource;
+
+import org.example.query.model.QueryRequest;
+import org.example.query.service.SqlGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class JdbcDataSourcePluginTest {
+
+    @Test
+    void callsAfterShutdownFailInsteadOfHanging() {
+        JdbcDataSourcePlugin plugin = new JdbcDataSourcePlugin(mock(SqlGenerator.class));
+        ReflectionTestUtils.setField(plugin, "poolSize", 1);
+        ReflectionTestUtils.setField(plugin, "queueCapacity", 1);
+        plugin.init();
+        plugin.shutdown();
+
+        CompletableFuture<?> call = plugin.executeAsync(null, new QueryRequest()).toCompletableFuture();
+
+        assertThat(call).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
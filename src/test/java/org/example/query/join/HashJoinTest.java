@@ -0,0 +1,82 @@
+package org.example.query.join;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashJoinTest {
+
+    // base key 1 appears twice and has two join partners; base key 3 and join key 4 have none
+    private static final List<Map<String, Object>> BASE = List.of(
+            row("id", 1, "a", "x"),
+            row("id", 1, "a", "w"),
+            row("id", 2, "a", "y"),
+            row("id", 3, "a", "z"));
+
+    // API sources return keys as strings; they must match the base's numbers
+    private static final List<Map<String, Object>> JOINED = List.of(
+            row("id", 1L, "b", "p"),
+            row("id", "1", "b", "q"),
+            row("id", "2", "b", "r"),
+            row("id", 4, "b", "s"));
+
+    @Test
+    void innerJoinEmitsEveryPairOfMatchingRows() {
+        assertThat(join(JoinType.INNER)).containsExactly(
+                List.of("x", "p"), List.of("x", "q"),
+                List.of("w", "p"), List.of("w", "q"),
+                List.of("y", "r"));
+    }
+
+    @Test
+    void leftJoinAlsoKeepsUnmatchedBaseRows() {
+        assertThat(join(JoinType.LEFT)).containsExactly(
+                List.of("x", "p"), List.of("x", "q"),
+                List.of("w", "p"), List.of("w", "q"),
+                List.of("y", "r"),
+                Arrays.asList("z", null));
+    }
+
+    @Test
+    void rightJoinAlsoKeepsUnmatchedJoinRows() {
+        assertThat(join(JoinType.RIGHT)).containsExactly(
+                List.of("x", "p"), List.of("x", "q"),
+                List.of("w", "p"), List.of("w", "q"),
+                List.of("y", "r"),
+                Arrays.asList(null, "s"));
+    }
+
+    @Test
+    void joinsOnDifferentlyNamedKeys() {
+        HashJoin hashJoin = new HashJoin(2,
+                new HashJoin.Projection(List.of("a"), List.of(0)),
+                List.of(new HashJoin.JoinSpec("customer_id", "id", JoinType.INNER,
+                        new HashJoin.Projection(List.of("b"), List.of(1)))));
+
+        List<Object[]> out = hashJoin.join(
+                List.of(row("customer_id", 2, "a", "y")),
+                List.of(JOINED));
+
+        assertThat(out).extracting(Arrays::asList).containsExactly(List.of("y", "r"));
+    }
+
+    private static List<List<Object>> join(JoinType type) {
+        HashJoin hashJoin = new HashJoin(2,
+                new HashJoin.Projection(List.of("a"), List.of(0)),
+                List.of(new HashJoin.JoinSpec("id", "id", type,
+                        new HashJoin.Projection(List.of("b"), List.of(1)))));
+        return hashJoin.join(BASE, List.of(JOINED)).stream().map(Arrays::asList).toList();
+    }
+
+    private static Map<String, Object> row(String k1, Object v1, String k2, Object v2) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(k1, v1);
+        row.put(k2, v2);
+        return row;
+    }
+}
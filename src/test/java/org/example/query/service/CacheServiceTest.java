@@ -0,0 +1,194 @@
+package org.example.query.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringJUnitConfig(CacheServiceTest.Config.class)
+class CacheServiceTest {
+
+    @Configuration
+    @Import(CacheService.class)
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        };
+
+        double coalesced = meterRegistry.counter("cache.load.coalesced").count();
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> cacheService.getOrLoad("single-flight", 60, loader)));
+            }
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            // hold the load until every other caller has joined it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("cache.load.coalesced").count() < coalesced + callers - 1
+                    && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.counter("cache.load.coalesced").count()).isEqualTo(coalesced + callers - 1);
+    }
+
+    @Test
+    void staleValueIsServedWhileItReloads() throws Exception {
+        CachePolicy policy = new CachePolicy(1, 60, 0);
+        assertThat(cacheService.<String>getOrLoad("swr", policy, () -> "v1")).isEqualTo("v1");
+        awaitExpiry("swr");
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reloads = new AtomicInteger();
+        Supplier<String> reload = () -> {
+            reloads.incrementAndGet();
+            await(release);
+            return "v2";
+        };
+        // the stale value comes back at once, and a second read doesn't start another reload
+        assertThat(cacheService.<String>getOrLoad("swr", policy, reload)).isEqualTo("v1");
+        assertThat(cacheService.<String>getOrLoad("swr", policy, reload)).isEqualTo("v1");
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cacheService.get("swr") == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cacheService.<String>get("swr")).isEqualTo("v2");
+        assertThat(reloads).hasValue(1);
+    }
+
+    @Test
+    void failedReloadKeepsTheStaleValue() throws Exception {
+        CachePolicy policy = new CachePolicy(1, 60, 0);
+        cacheService.getOrLoad("swr-failure", policy, () -> "v1");
+        awaitExpiry("swr-failure");
+
+        double failures = meterRegistry.counter("cache.refresh.failures").count();
+        CountDownLatch reloaded = new CountDownLatch(1);
+        Supplier<String> failing = () -> {
+            reloaded.countDown();
+            throw new IllegalStateException("source down");
+        };
+        assertThat(cacheService.<String>getOrLoad("swr-failure", policy, failing)).isEqualTo("v1");
+        assertThat(reloaded.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("cache.refresh.failures").count() == failures && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(meterRegistry.counter("cache.refresh.failures").count()).isEqualTo(failures + 1);
+        assertThat(cacheService.<String>peek("swr-failure")).isEqualTo("v1");
+    }
+
+    @Test
+    void batchLoadsOnlyKeysNobodyElseIsLoading() throws Exception {
+        CachePolicy policy = new CachePolicy(60, 0, 0);
+        cacheService.getOrLoad("batch-hit", policy, () -> "hit");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> single = pool.submit(() -> cacheService.getOrLoad("batch-joined", policy, () -> {
+                loading.countDown();
+                await(release);
+                return "joined";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            double coalesced = meterRegistry.counter("cache.load.coalesced").count();
+            List<Map<String, String>> batches = new CopyOnWriteArrayList<>();
+            Future<List<String>> batch = pool.submit(() ->
+                    cacheService.getOrLoadAll(List.of("batch-hit", "batch-joined", "batch-miss", "batch-hit"), policy,
+                            v -> true,
+                            (key, current) -> "unused",
+                            (Map<String, String> missed) -> {
+                                batches.add(missed);
+                                Map<String, String> loaded = new HashMap<>();
+                                missed.keySet().forEach(key -> loaded.put(key, "loaded"));
+                                return loaded;
+                            },
+                            (key, value) -> List.of()));
+            // the batch loads its miss and then waits for the key already in flight
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("cache.load.coalesced").count() == coalesced && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertThat(batches).hasSize(1);
+            release.countDown();
+
+            assertThat(batch.get(5, TimeUnit.SECONDS)).containsExactly("hit", "joined", "loaded", "hit");
+            assertThat(single.get(5, TimeUnit.SECONDS)).isEqualTo("joined");
+            assertThat(batches).hasSize(1);
+            assertThat(batches.get(0)).containsOnlyKeys("batch-miss");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Waits until key's TTL has passed; it is then only kept for stale-while-revalidate. */
+    private void awaitExpiry(String key) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cacheService.get(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cacheService.<String>get(key)).isNull();
+        assertThat(cacheService.<String>peek(key)).isNotNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.query.model.RowSet;
+import org.example.schema.model.Field;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The streaming extractor must produce the same rows as ApiClient's tree-based
+ * extraction for every path it accepts.
+ */
+class JsonStreamExtractorTest {
+
+    private static final String PROFILE = """
+            {"data": {"profile": {"customer_id": "1", "name": "Alice", "tags": ["a", "b"], "address": {"city": "Oslo"}},
+                      "metrics": {"loyaltyScore": 100, "ratio": 0.5}}}""";
+
+    private static final String PROFILES = """
+            {"data": {"profile": [{"customer_id": "11", "name": "N11"},
+                                  {"customer_id": "12", "name": "N12", "extra": {"skip": [1, 2, 3]}},
+                                  {"customer_id": "13"}],
+                      "metrics": {"loyaltyScore": 7}}}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ApiClient apiClient = new ApiClient(HttpClient.newHttpClient(), objectMapper);
+
+    @Test
+    void singleNodeWithDocumentLevelAndNestedFields() throws IOException {
+        assertSameRows(PROFILE, "$.data.profile",
+                field("customer_id", null),
+                field("name", null),
+                field("tags", null),
+                field("city", "$.data.profile.address.city"),
+                field("loyalty_score", "$.data.metrics.loyaltyScore"),
+                field("ratio", "$.data.metrics.ratio"),
+                field("missing", null));
+    }
+
+    @Test
+    void arrayOfNodes() throws IOException {
+        assertSameRows(PROFILES, "$.data.profile",
+                field("customer_id", null),
+                field("name", null),
+                field("loyalty_score", "$.data.metrics.loyaltyScore"));
+    }
+
+    @Test
+    void wildcardNamespacePath() throws IOException {
+        assertSameRows(PROFILES, "$.data.profile[*]",
+                field("customer_id", null),
+                field("name", "$.data.profile[*].name"));
+    }
+
+    @Test
+    void indexedNamespacePath() throws IOException {
+        assertSameRows(PROFILES, "$.data['profile'][1]",
+                field("customer_id", null),
+                field("name", null));
+    }
+
+    @Test
+    void wholeDocumentFallsBackToMembers() throws IOException {
+        assertSameRows("""
+                {"customer_id": 5, "name": "Eve", "nested": {"a": [1, {"b": true}]}}""", "",
+                field("customer_id", null),
+                field("nested", null),
+                field("missing", null));
+    }
+
+    @Test
+    void pathsThatCannotBeStreamedAreRejected() {
+        assertThat(JsonStreamExtractor.compile("$..profile", List.of(field("name", null)))).isNull();
+        assertThat(JsonStreamExtractor.compile("$.data.profile[?(@.name)]", List.of(field("name", null)))).isNull();
+        assertThat(JsonStreamExtractor.compile("$.data.profile", List.of(field("all", "$.data.metrics.*")))).isNull();
+    }
+
+    private void assertSameRows(String json, String namespacePath, Field... fields) throws IOException {
+        List<Field> fieldList = List.of(fields);
+        JsonStreamExtractor extractor = JsonStreamExtractor.compile(namespacePath, fieldList);
+        assertThat(extractor).isNotNull();
+
+        List<List<Object>> streamed = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            extractor.extract(parser, values -> streamed.add(Arrays.asList(values)));
+        }
+        RowSet tree = apiClient.extractTree(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), namespacePath, fieldList);
+        List<List<Object>> expected = new ArrayList<>();
+        for (int i = 0; i < tree.size(); i++) {
+            expected.add(Arrays.asList(tree.values(i)));
+        }
+
+        assertThat(streamed).isNotEmpty().isEqualTo(expected);
+    }
+
+    private static Field field(String name, String jsonPath) {
+        Field f = new Field();
+        f.setName(name);
+        f.setJsonPath(jsonPath);
+        return f;
+    }
+}
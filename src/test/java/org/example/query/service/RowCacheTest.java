@@ -0,0 +1,203 @@
+package org.example.query.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.query.datasource.DataSourcePlugin;
+import org.example.query.model.QueryRequest;
+import org.example.schema.model.Field;
+import org.example.schema.model.Namespace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(RowCacheTest.Config.class)
+class RowCacheTest {
+
+    @Configuration
+    @Import(CacheService.class)
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private DataSourcePlugin plugin;
+    private QueryPlan plan;
+    private RowCache rowCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheService.clear();
+        plugin = mock(DataSourcePlugin.class);
+        // one row per requested key, named after it
+        when(plugin.executeBatch(any(), anyList(), anyInt())).thenAnswer(invocation -> {
+            List<QueryRequest> requests = invocation.getArgument(1);
+            return requests.stream()
+                    .map(r -> List.of(row(r.getArguments().get("customer_id"))))
+                    .toList();
+        });
+
+        Namespace ns = new Namespace();
+        ns.setNamespace("customers");
+        ns.setPrimaryKey(List.of("customer_id"));
+        ns.setCacheable(true);
+        ns.setCacheTTL(60);
+        List<Field> fields = List.of(field("customer_id"), field("first_name"));
+        ns.setFields(fields);
+        plan = new QueryPlan("CustomerDBSchema", null, ns, plugin, fields, List.of("customer_id"),
+                List.of(fields.get(0)), Map.of(), Set.of("CustomerDBSchema"));
+        rowCache = new RowCache(cacheService, mock(QueryPlanCache.class), new ObjectMapper());
+    }
+
+    @Test
+    void missesAreFetchedInOneBatch() {
+        rowCache.getAll(plan, List.of(request(1)), name -> null);
+
+        List<List<Map<String, Object>>> results = rowCache.getAll(plan,
+                List.of(request(2), request(1), request(3)), name -> null);
+
+        assertThat(results).containsExactly(List.of(row(2)), List.of(row(1)), List.of(row(3)));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<QueryRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(plugin, times(2)).executeBatch(any(), batches.capture(), anyInt());
+        assertThat(batches.getAllValues().get(1))
+                .extracting(r -> r.getArguments().get("customer_id"))
+                .containsExactly(2, 3);
+    }
+
+    @Test
+    void cachedKeysAreNotFetchedAgain() {
+        rowCache.getAll(plan, List.of(request(1), request(2)), name -> null);
+
+        List<List<Map<String, Object>>> results = rowCache.getAll(plan, List.of(request(2), request(1)), name -> null);
+
+        assertThat(results).containsExactly(List.of(row(2)), List.of(row(1)));
+        verify(plugin, times(1)).executeBatch(any(), anyList(), anyInt());
+        verify(plugin, never()).execute(any(QueryPlan.class), any(QueryRequest.class));
+    }
+
+    @Test
+    void concurrentWideningSharesOneFetch() throws Exception {
+        QueryPlan narrow = new QueryPlan("CustomerDBSchema", null, plan.getNamespace(), plugin,
+                List.of(plan.getFields().get(0)), List.of("customer_id"), plan.getArgumentFields(),
+                Map.of(), Set.of("CustomerDBSchema"));
+        when(plugin.execute(any(QueryPlan.class), any(QueryRequest.class)))
+                .thenReturn(List.of(Map.of("customer_id", 1)));
+        rowCache.get(narrow, request(1), name -> null);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(plugin.execute(any(QueryPlan.class), any(QueryRequest.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(row(1));
+        });
+        double coalesced = meterRegistry.counter("cache.load.coalesced").count();
+        int callers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<Map<String, Object>>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> rowCache.get(plan, request(1), name -> null)));
+            }
+            // every caller but the loader has joined the widening fetch
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("cache.load.coalesced").count() < coalesced + callers - 1
+                    && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<List<Map<String, Object>>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly(row(1));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(plugin, times(1)).execute(eq(plan), any(QueryRequest.class));
+    }
+
+    @Test
+    void staleKeysAreServedAndRefreshedInTheBackground() throws Exception {
+        plan.getNamespace().setCacheTTL(1);
+        plan.getNamespace().setStaleWhileRevalidate(60);
+        rowCache.getAll(plan, List.of(request(1)), name -> null);
+        String key = "customers::CustomerDBSchema:1";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cacheService.get(key) != null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(plugin.execute(any(QueryPlan.class), any(QueryRequest.class))).thenAnswer(invocation -> {
+            refreshed.countDown();
+            return List.of(row(1));
+        });
+        List<List<Map<String, Object>>> results = rowCache.getAll(plan, List.of(request(1), request(2)), name -> null);
+
+        assertThat(results).containsExactly(List.of(row(1)), List.of(row(2)));
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<QueryRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(plugin, times(2)).executeBatch(any(), batches.capture(), anyInt());
+        assertThat(batches.getAllValues().get(1))
+                .extracting(r -> r.getArguments().get("customer_id"))
+                .containsExactly(2);
+    }
+
+    private static QueryRequest request(int id) {
+        QueryRequest req = new QueryRequest();
+        req.setSchema("CustomerDBSchema");
+        req.setNamespace("customers");
+        req.setArguments(Map.of("customer_id", id));
+        req.setFields(List.of("customer_id", "first_name"));
+        return req;
+    }
+
+    private static Map<String, Object> row(Object id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("customer_id", id);
+        row.put("first_name", "name" + id);
+        return row;
+    }
+
+    private static Field field(String name) {
+        Field f = new Field();
+        f.setName(name);
+        f.setType("string");
+        return f;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.query.service;
+
+import org.example.schema.model.Namespace;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SqlGeneratorTest {
+
+    private final SqlGenerator sqlGenerator = new SqlGenerator(Map.of(), mock(DataSource.class));
+
+    @Test
+    void batchSqlSelectsTheKeyColumnForDemultiplexing() {
+        assertThat(sqlGenerator.generateBatchSql(namespace("customers"), List.of("first_name", "email"), "customer_id"))
+                .isEqualTo("SELECT first_name, email, customer_id FROM customers WHERE customer_id = ANY(?)");
+    }
+
+    @Test
+    void batchSqlDoesNotSelectTheKeyTwice() {
+        assertThat(sqlGenerator.generateBatchSql(namespace("customers"), List.of("customer_id", "email"), "customer_id"))
+                .isEqualTo("SELECT customer_id, email FROM customers WHERE customer_id = ANY(?)");
+    }
+
+    @Test
+    void joinSqlAliasesJoinColumnsAndFiltersOnTheBaseKey() {
+        List<SqlGenerator.JoinClause> joins = List.of(
+                new SqlGenerator.JoinClause(namespace("accounts"), "LEFT", "customer_id", "owner_id",
+                        List.of("accountNum", "balance"), List.of()),
+                new SqlGenerator.JoinClause(namespace("addresses"), "INNER", "customer_id", "customer_id",
+                        List.of("city"), List.of("country")));
+
+        String sql = sqlGenerator.generateJoinSql(namespace("customers"), List.of("customer_id", "full_name"),
+                "customer_id", joins);
+
+        assertThat(sql).isEqualTo("SELECT t0.customer_id, t0.full_name, t1.accountNum AS j1_accountNum,"
+                + " t1.balance AS j1_balance, t2.city AS j2_city"
+                + " FROM customers t0"
+                + " LEFT JOIN accounts t1 ON t1.owner_id = t0.customer_id"
+                + " INNER JOIN addresses t2 ON t2.customer_id = t0.customer_id AND t2.country = ?"
+                + " WHERE t0.customer_id = ?");
+    }
+
+    private static Namespace namespace(String name) {
+        Namespace ns = new Namespace();
+        ns.setNamespace(name);
+        return ns;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.query.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubQueryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SubQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new SubQueryExecutor(meterRegistry);
+        ReflectionTestUtils.setField(executor, "mode", "bounded");
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "maxConcurrencyPerRequest", 8);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void saturatedCallsAreRejectedWithoutBlocking() {
+        CompletableFuture<String> running = new CompletableFuture<>();
+        CompletableFuture<String> first = executor.limit(() -> running);
+        CompletableFuture<String> queued = executor.limit(() -> CompletableFuture.completedFuture("queued"));
+
+        // the permit is taken and the one queue slot is used: the caller gets a failed future, not a wait
+        CompletableFuture<String> rejected = executor.limit(() -> CompletableFuture.completedFuture("rejected"));
+
+        assertThat(rejected).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("query.executor.saturated").count()).isEqualTo(1);
+        assertThat(queued).isNotDone();
+
+        running.complete("running");
+        assertThat(first).isCompletedWithValue("running");
+        assertThat(queued).isCompletedWithValue("queued");
+    }
+
+    @Test
+    void saturatedCallbacksDoNotBlockTheCompletingThread() {
+        CompletableFuture<String> running = new CompletableFuture<>();
+        executor.limit(() -> running);
+        executor.limit(CompletableFuture::new);
+
+        // a stage started from a completion callback, as composeAll does, once the queue is full
+        CompletableFuture<String> trigger = new CompletableFuture<>();
+        CompletableFuture<String> chained = trigger.thenCompose(v ->
+                executor.limit(() -> CompletableFuture.completedFuture(v)));
+        trigger.complete("done");
+
+        assertThat(chained).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+}